@@ -0,0 +1,180 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+import edu.georgetown.uis.corpling.pepper.streusle.SentenceStage.Node;
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.core.SLayer;
+
+/**
+ * Runs StreusleMapper's package-private stages over a document, for the benchmarks that measure them.
+ * It lives in the benchmarks but in the importer's package, which is what lets it reach the stages
+ * without anything in the importer's jars exposing them. Not meant for anything else: the stages are
+ * internals and change whenever the mapper does.
+ * <p>
+ * Everything a stage needs from the stages before it is prepared once, in the constructor. Each stage
+ * method runs the stage over every sentence and hands each result to a sink, e.g. a JMH Blackhole,
+ * so that none of the work can be optimized away.
+ */
+public final class MapperStages {
+    // what processSentence has at hand after columns 1-2, for one sentence
+    private static class SentenceInput {
+        JsonObject sentence;
+        String sentenceId;
+        String text;
+        // as in the JSON, i.e. without the ellipsis tokens
+        List<JsonObject> rawTokens;
+        List<JsonObject> tokens;
+        List<Node> sTokens;
+        TokenTable id2token;
+        EnhancedDeps[] edeps;
+        List<String> headIds;
+    }
+
+    private final StreusleImporterProperties properties;
+    private final StreusleMapper mapper = new StreusleMapper();
+    private final SLayer edeps = SaltFactory.createSLayer();
+    private final SLayer cycle = SaltFactory.createSLayer();
+    private final SLayer govobj = SaltFactory.createSLayer();
+    private final JsonValue json;
+    private final List<SentenceInput> sentences = new ArrayList<>();
+
+    /**
+     * @param document a document's UTF-8 encoded JSON
+     */
+    public MapperStages(byte[] document, StreusleImporterProperties properties) {
+        this.properties = properties;
+        mapper.setProperties(properties);
+        json = parse(ByteBuffer.wrap(document));
+        for (JsonValue value : json.asArray()) {
+            SentenceInput input = new SentenceInput();
+            input.sentence = value.asObject();
+            input.sentenceId = input.sentence.get("sent_id").asString();
+            input.text = input.sentence.get("text").asString();
+            input.rawTokens = new ArrayList<>();
+            for (JsonValue token : input.sentence.get("toks").asArray()) {
+                input.rawTokens.add(token.asObject());
+            }
+
+            SentenceStage stage = new SentenceStage();
+            input.tokens = new ArrayList<>(input.rawTokens);
+            input.sTokens = mapper.processWordField(stage, input.sentenceId, input.tokens, input.text, 0);
+            input.id2token = mapper.processIdField(stage, input.sTokens, input.tokens);
+            mapper.mergeEtoks(stage, input.sentenceId, input.sTokens, input.tokens, input.sentence, 0,
+                    input.id2token);
+            input.edeps = EnhancedDeps.parseAll(input.tokens);
+            input.headIds = mapper.processHeadAndDeprelField(stage, input.sentenceId, input.id2token,
+                    input.sTokens, input.tokens, input.edeps);
+            sentences.add(input);
+        }
+    }
+
+    /**
+     * Parse a document the way mapSDocument does.
+     */
+    public static JsonValue parse(ByteBuffer document) {
+        return StreusleMapper.parse(document);
+    }
+
+    /**
+     * @return the document mapped from json, parsed as by {@link #parse}. Everything mapSDocument does
+     *         after parsing, without the file or the cache.
+     */
+    public SDocumentGraph processDocument(JsonValue json) {
+        SDocumentGraph graph = SaltFactory.createSDocumentGraph();
+        mapper.processDocument(graph, json);
+        return graph;
+    }
+
+    /**
+     * @return the document passed to the constructor, mapped as by {@link #processDocument(JsonValue)}
+     */
+    public SDocumentGraph processDocument() {
+        return processDocument(json);
+    }
+
+    public void wordField(Consumer<Object> sink) {
+        for (SentenceInput s : sentences) {
+            sink.accept(mapper.processWordField(new SentenceStage(), s.sentenceId, s.rawTokens, s.text, 0));
+        }
+    }
+
+    public void idField(Consumer<Object> sink) {
+        for (SentenceInput s : sentences) {
+            sink.accept(mapper.processIdField(new SentenceStage(), s.sTokens, s.rawTokens));
+        }
+    }
+
+    public void simpleStringField(Consumer<Object> sink) {
+        for (SentenceInput s : sentences) {
+            SentenceStage stage = new SentenceStage();
+            mapper.processSimpleStringField(stage, s.sTokens, s.tokens, "lemma", "lemma");
+            sink.accept(stage);
+        }
+    }
+
+    public void featsField(Consumer<Object> sink) {
+        for (SentenceInput s : sentences) {
+            SentenceStage stage = new SentenceStage();
+            mapper.processFeatsField(stage, s.sTokens, s.tokens);
+            sink.accept(stage);
+        }
+    }
+
+    public void headAndDeprelField(Consumer<Object> sink) {
+        for (SentenceInput s : sentences) {
+            sink.accept(mapper.processHeadAndDeprelField(new SentenceStage(), s.sentenceId, s.id2token,
+                    s.sTokens, s.tokens, EnhancedDeps.parseAll(s.tokens)));
+        }
+    }
+
+    public void depsField(Consumer<Object> sink) {
+        for (SentenceInput s : sentences) {
+            SentenceStage stage = new SentenceStage();
+            mapper.processDepsField(stage, s.sentenceId, s.id2token, s.sTokens, s.edeps, edeps, cycle, s.headIds);
+            sink.accept(stage);
+        }
+    }
+
+    public void miscField(Consumer<Object> sink) {
+        for (SentenceInput s : sentences) {
+            SentenceStage stage = new SentenceStage();
+            mapper.processMiscField(stage, s.sTokens, s.tokens);
+            sink.accept(stage);
+        }
+    }
+
+    public void mweFields(Consumer<Object> sink) {
+        for (SentenceInput s : sentences) {
+            SentenceStage stage = new SentenceStage();
+            sink.accept(mapper.processMWEField(stage, s.sentenceId, s.sTokens, s.tokens, true));
+            sink.accept(mapper.processMWEField(stage, s.sentenceId, s.sTokens, s.tokens, false));
+        }
+    }
+
+    /**
+     * simpleStringField through mweFields (plus the other columns they stand for) in one pass, as
+     * processSentence runs them by default.
+     */
+    public void tokenColumnPass(Consumer<Object> sink) {
+        for (SentenceInput s : sentences) {
+            SentenceStage stage = new SentenceStage();
+            TokenColumnPass columnPass = new TokenColumnPass(stage, s.sentenceId, s.id2token,
+                    new TokenSpans(properties.isMergeTokenSpans()), properties, edeps, cycle);
+            columnPass.run(s.sTokens, s.tokens);
+            sink.accept(stage);
+        }
+    }
+
+    public void sentence(Consumer<Object> sink) {
+        for (SentenceInput s : sentences) {
+            sink.accept(mapper.processSentence(new SentenceStage(), edeps, cycle, govobj, s.sentence, 0));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package edu.georgetown.uis.corpling.pepper.streusle.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import edu.georgetown.uis.corpling.pepper.streusle.SyntheticCorpus;
+
+/**
+ * Where the benchmarks get their STREUSLE JSON from. A document is named by the benchmarks' "document"
+ * parameter, which can be
+ * <ul>
+ *     <li>"reviews-sample": a couple of real-shaped sentences bundled with the importer's tests</li>
+ *     <li>"synthetic-N": a SyntheticCorpus document of N sentences, with the generator's defaults
+ *     otherwise</li>
+ *     <li>anything else: a path to a document-level STREUSLE JSON file, e.g. one written by
+ *     StreusleCorpusSplitter</li>
+ * </ul>
+ */
+final class BenchmarkDocuments {
+    static final String SAMPLE = "reviews-sample";
+    static final String SYNTHETIC_PREFIX = "synthetic-";
+
+    private BenchmarkDocuments() {
+    }
+
+    /**
+     * @return the UTF-8 encoded JSON of the named document
+     */
+    static byte[] load(String name) throws IOException {
+        if (name.equals(SAMPLE)) {
+            return sample();
+        }
+        if (name.startsWith(SYNTHETIC_PREFIX)) {
+            int sentenceCount = Integer.parseInt(name.substring(SYNTHETIC_PREFIX.length()));
+            return new SyntheticCorpus().sentencesPerDocument(sentenceCount).document(0).toString()
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+        return Files.readAllBytes(Paths.get(name));
+    }
+
+    // the importer's test jar has the sample as a resource
+    private static byte[] sample() throws IOException {
+        try (InputStream in = BenchmarkDocuments.class.getResourceAsStream("/" + SAMPLE + ".json")) {
+            if (in == null) {
+                throw new IOException("The " + SAMPLE + ".json resource is missing");
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package edu.georgetown.uis.corpling.pepper.streusle.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar. Takes the usual JMH command line options, but always adds the GC
+ * profiler, so that every run reports allocation rates (gc.alloc.rate.norm is bytes per operation)
+ * next to the throughput and latency percentiles.
+ * <pre>
+ * java -jar target/benchmarks.jar                          # everything
+ * java -jar target/benchmarks.jar MapperBenchmark -p document=/path/to/doc.json
+ * </pre>
+ */
+public class BenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,45 @@
+package edu.georgetown.uis.corpling.pepper.streusle.benchmarks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonValue;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Parsing a whole STREUSLE document into a JsonValue tree, from a String (what StreusleMapper used to
+ * do) and from UTF-8 bytes (what it does now).
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonParseBenchmark {
+    @Param({BenchmarkDocuments.SAMPLE, "synthetic-1000"})
+    public String document;
+
+    private String text;
+    private ByteBuffer bytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] json = BenchmarkDocuments.load(document);
+        text = new String(json, StandardCharsets.UTF_8);
+        bytes = ByteBuffer.wrap(json);
+    }
+
+    @Benchmark
+    public JsonValue parseString() {
+        return Json.parse(text);
+    }
+
+    @Benchmark
+    public JsonValue parseBytes() {
+        return Json.parse(bytes);
+    }
+}
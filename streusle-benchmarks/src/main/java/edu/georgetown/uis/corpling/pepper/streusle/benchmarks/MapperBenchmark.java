@@ -0,0 +1,53 @@
+package edu.georgetown.uis.corpling.pepper.streusle.benchmarks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import com.eclipsesource.json.JsonValue;
+import edu.georgetown.uis.corpling.pepper.streusle.MapperStages;
+import edu.georgetown.uis.corpling.pepper.streusle.StreusleImporterProperties;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * StreusleMapper.processDocument on an already parsed document, i.e. everything mapSDocument does
+ * after parsing, and the same plus parsing for a whole mapping from the raw bytes.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+    @Param({BenchmarkDocuments.SAMPLE, "synthetic-1000"})
+    public String document;
+
+    @Param({"true", "false"})
+    public boolean fusedColumns;
+
+    private ByteBuffer bytes;
+    private JsonValue json;
+    private MapperStages mapper;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] data = BenchmarkDocuments.load(document);
+        bytes = ByteBuffer.wrap(data);
+        json = MapperStages.parse(bytes);
+        StreusleImporterProperties properties = new StreusleImporterProperties();
+        properties.setPropertyValue(StreusleImporterProperties.PROP_FUSED_COLUMNS, fusedColumns);
+        mapper = new MapperStages(data, properties);
+    }
+
+    @Benchmark
+    public SDocumentGraph processDocument() {
+        return mapper.processDocument(json);
+    }
+
+    @Benchmark
+    public SDocumentGraph parseAndProcessDocument() {
+        return mapper.processDocument(MapperStages.parse(bytes));
+    }
+}
@@ -0,0 +1,84 @@
+package edu.georgetown.uis.corpling.pepper.streusle.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import edu.georgetown.uis.corpling.pepper.streusle.MapperStages;
+import edu.georgetown.uis.corpling.pepper.streusle.StreusleImporterProperties;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The individual stages of StreusleMapper.processSentence, each run over every sentence of the
+ * document. Stages only record what they would do to the graph (see SentenceStage), so these
+ * measure the mapper's own work without Salt's. The stages are package-private, so they are run
+ * through {@link MapperStages}, which prepares everything a stage needs from the stages before it once.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StageBenchmark {
+    @Param({BenchmarkDocuments.SAMPLE, "synthetic-1000"})
+    public String document;
+
+    private MapperStages stages;
+
+    @Setup
+    public void setUp() throws IOException {
+        stages = new MapperStages(BenchmarkDocuments.load(document), new StreusleImporterProperties());
+    }
+
+    @Benchmark
+    public void wordField(Blackhole bh) {
+        stages.wordField(bh::consume);
+    }
+
+    @Benchmark
+    public void idField(Blackhole bh) {
+        stages.idField(bh::consume);
+    }
+
+    @Benchmark
+    public void simpleStringField(Blackhole bh) {
+        stages.simpleStringField(bh::consume);
+    }
+
+    @Benchmark
+    public void featsField(Blackhole bh) {
+        stages.featsField(bh::consume);
+    }
+
+    @Benchmark
+    public void headAndDeprelField(Blackhole bh) {
+        stages.headAndDeprelField(bh::consume);
+    }
+
+    @Benchmark
+    public void depsField(Blackhole bh) {
+        stages.depsField(bh::consume);
+    }
+
+    @Benchmark
+    public void miscField(Blackhole bh) {
+        stages.miscField(bh::consume);
+    }
+
+    @Benchmark
+    public void mweFields(Blackhole bh) {
+        stages.mweFields(bh::consume);
+    }
+
+    // simpleStringField through mweFields (plus the other columns they stand for) in one pass, as processSentence runs them by default
+    @Benchmark
+    public void tokenColumnPass(Blackhole bh) {
+        stages.tokenColumnPass(bh::consume);
+    }
+
+    @Benchmark
+    public void sentence(Blackhole bh) {
+        stages.sentence(bh::consume);
+    }
+}
@@ -23,6 +23,7 @@ package com.eclipsesource.json;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.ByteBuffer;
 
 
 /**
@@ -80,7 +81,7 @@ public final class Json {
    * @return a JSON value that represents the given value
    */
   public static JsonValue value(int value) {
-    return new JsonNumber(Integer.toString(value, 10));
+    return JsonNumber.of(value);
   }
 
   /**
@@ -321,6 +322,50 @@ public final class Json {
     return handler.getValue();
   }
 
+  /**
+   * Parses the bytes between the given buffer's position and its limit as UTF-8 encoded JSON. The
+   * input must contain a valid JSON value, optionally padded with whitespace.
+   *
+   * @param buffer
+   *          the buffer to read the JSON value from, e.g. a memory-mapped file
+   * @return a value that represents the parsed JSON
+   * @throws ParseException
+   *           if the input is not valid JSON
+   * @see JsonByteParser
+   */
+  public static JsonValue parse(ByteBuffer buffer) {
+    if (buffer == null) {
+      throw new NullPointerException("buffer is null");
+    }
+    DefaultHandler handler = new DefaultHandler();
+    new JsonByteParser(handler).parse(buffer);
+    return handler.getValue();
+  }
+
+  /**
+   * Like {@link #parse(ByteBuffer)}, but member names found in the given table are not allocated
+   * anew for every object.
+   *
+   * @param buffer
+   *          the buffer to read the JSON value from, e.g. a memory-mapped file
+   * @param names
+   *          the member names to intern
+   * @return a value that represents the parsed JSON
+   * @throws ParseException
+   *           if the input is not valid JSON
+   * @see NameTable
+   */
+  public static JsonValue parse(ByteBuffer buffer, NameTable names) {
+    if (buffer == null) {
+      throw new NullPointerException("buffer is null");
+    }
+    DefaultHandler handler = new DefaultHandler();
+    JsonByteParser parser = new JsonByteParser(handler);
+    parser.setNameTable(names);
+    parser.parse(buffer);
+    return handler.getValue();
+  }
+
   private static String cutOffPointZero(String string) {
     if (string.endsWith(".0")) {
       return string.substring(0, string.length() - 2);
@@ -328,7 +373,11 @@ public final class Json {
     return string;
   }
 
-  static class DefaultHandler extends JsonHandler<JsonArray, JsonObject> {
+  /**
+   * The handler used by {@link #parse(Reader)} to build a tree of {@link JsonValue}s. It is public
+   * so that callers can subclass it to intercept and release parts of the tree while parsing.
+   */
+  public static class DefaultHandler extends JsonHandler<JsonArray, JsonObject> {
 
     protected JsonValue value;
 
@@ -362,6 +411,11 @@ public final class Json {
       value = new JsonNumber(string);
     }
 
+    @Override
+    public void endInt(int number) {
+      value = JsonNumber.of(number);
+    }
+
     @Override
     public void endArray(JsonArray array) {
       value = array;
@@ -382,7 +436,7 @@ public final class Json {
       object.add(name, value);
     }
 
-    JsonValue getValue() {
+    public JsonValue getValue() {
       return value;
     }
 
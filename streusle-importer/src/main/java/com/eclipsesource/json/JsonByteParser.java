@@ -0,0 +1,544 @@
+package com.eclipsesource.json;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * A streaming parser for UTF-8 encoded JSON held in a <code>byte[]</code> or a {@link ByteBuffer},
+ * e.g. a <code>MappedByteBuffer</code> of a file. The parser reports the same events to its handler
+ * as {@link JsonParser} does, but it works on the bytes directly: there is no separate decoding
+ * pass, and UTF-8 is only decoded for the contents of strings and member names.
+ * <p>
+ * Locations reported by this parser count bytes rather than characters.
+ * </p>
+ */
+public class JsonByteParser {
+
+  // any integer of up to 9 digits fits in an int
+  private static final int MAX_INT_DIGITS = 9;
+  private static final int MAX_NESTING_LEVEL = 1000;
+  private static final int DEFAULT_CAPTURE_SIZE = 64;
+  private static final int STRING_CACHE_SIZE = 512;
+  private static final int MAX_CACHED_STRING_LENGTH = 32;
+
+  private final JsonHandler<Object, Object> handler;
+  private ByteBuffer input;
+  private int index;
+  private int limit;
+  private int line;
+  private int lineOffset;
+  private int current;
+  private char[] captureBuffer;
+  private int captureLength;
+  private int nestingLevel;
+  // recently read short strings by hash, so that repeated names and values share one String
+  private final String[] stringCache = new String[STRING_CACHE_SIZE];
+  private NameTable nameTable;
+
+  /**
+   * Creates a new JsonByteParser with the given handler. The parser will report all parser events
+   * to this handler.
+   *
+   * @param handler
+   *          the handler to process parser events
+   */
+  @SuppressWarnings("unchecked")
+  public JsonByteParser(JsonHandler<?, ?> handler) {
+    if (handler == null) {
+      throw new NullPointerException("handler is null");
+    }
+    this.handler = (JsonHandler<Object, Object>)handler;
+    handler.parser = null;
+    handler.byteParser = this;
+  }
+
+  /**
+   * Makes the parser return member names that are in the given table as the table's own String
+   * instances. Names are looked up straight from the decoded characters, without allocating a
+   * String first.
+   *
+   * @param nameTable
+   *          the names to intern, or <code>null</code> to allocate (or cache) every name
+   */
+  public void setNameTable(NameTable nameTable) {
+    this.nameTable = nameTable;
+  }
+
+  /**
+   * Parses the given UTF-8 encoded input. The input must contain a valid JSON value, optionally
+   * padded with whitespace.
+   *
+   * @param bytes
+   *          the input bytes, must be valid JSON
+   * @throws ParseException
+   *           if the input is not valid JSON
+   */
+  public void parse(byte[] bytes) {
+    if (bytes == null) {
+      throw new NullPointerException("bytes is null");
+    }
+    parse(ByteBuffer.wrap(bytes));
+  }
+
+  /**
+   * Parses the bytes between the given buffer's position and its limit as UTF-8 encoded JSON. The
+   * input must contain a valid JSON value, optionally padded with whitespace. The buffer's position
+   * is not modified, and reported locations are relative to its position.
+   *
+   * @param buffer
+   *          the input buffer, must contain valid JSON
+   * @throws ParseException
+   *           if the input is not valid JSON
+   */
+  public void parse(ByteBuffer buffer) {
+    if (buffer == null) {
+      throw new NullPointerException("buffer is null");
+    }
+    input = buffer.slice();
+    index = 0;
+    limit = input.limit();
+    line = 1;
+    lineOffset = 0;
+    current = 0;
+    nestingLevel = 0;
+    if (captureBuffer == null) {
+      captureBuffer = new char[DEFAULT_CAPTURE_SIZE];
+    }
+    read();
+    skipWhiteSpace();
+    readValue();
+    skipWhiteSpace();
+    if (!isEndOfText()) {
+      throw error("Unexpected character");
+    }
+    input = null;
+  }
+
+  private void readValue() {
+    switch (current) {
+      case 'n':
+        readNull();
+        break;
+      case 't':
+        readTrue();
+        break;
+      case 'f':
+        readFalse();
+        break;
+      case '"':
+        readString();
+        break;
+      case '[':
+        readArray();
+        break;
+      case '{':
+        readObject();
+        break;
+      case '-':
+      case '0':
+      case '1':
+      case '2':
+      case '3':
+      case '4':
+      case '5':
+      case '6':
+      case '7':
+      case '8':
+      case '9':
+        readNumber();
+        break;
+      default:
+        throw expected("value");
+    }
+  }
+
+  private void readArray() {
+    Object array = handler.startArray();
+    read();
+    if (++nestingLevel > MAX_NESTING_LEVEL) {
+      throw error("Nesting too deep");
+    }
+    skipWhiteSpace();
+    if (readChar(']')) {
+      nestingLevel--;
+      handler.endArray(array);
+      return;
+    }
+    do {
+      skipWhiteSpace();
+      handler.startArrayValue(array);
+      readValue();
+      handler.endArrayValue(array);
+      skipWhiteSpace();
+    } while (readChar(','));
+    if (!readChar(']')) {
+      throw expected("',' or ']'");
+    }
+    nestingLevel--;
+    handler.endArray(array);
+  }
+
+  private void readObject() {
+    Object object = handler.startObject();
+    read();
+    if (++nestingLevel > MAX_NESTING_LEVEL) {
+      throw error("Nesting too deep");
+    }
+    skipWhiteSpace();
+    if (readChar('}')) {
+      nestingLevel--;
+      handler.endObject(object);
+      return;
+    }
+    do {
+      skipWhiteSpace();
+      handler.startObjectName(object);
+      String name = readName();
+      handler.endObjectName(object, name);
+      skipWhiteSpace();
+      if (!readChar(':')) {
+        throw expected("':'");
+      }
+      skipWhiteSpace();
+      handler.startObjectValue(object, name);
+      readValue();
+      handler.endObjectValue(object, name);
+      skipWhiteSpace();
+    } while (readChar(','));
+    if (!readChar('}')) {
+      throw expected("',' or '}'");
+    }
+    nestingLevel--;
+    handler.endObject(object);
+  }
+
+  private String readName() {
+    if (current != '"') {
+      throw expected("name");
+    }
+    return readStringInternal(nameTable);
+  }
+
+  private void readNull() {
+    handler.startNull();
+    read();
+    readRequiredChar('u');
+    readRequiredChar('l');
+    readRequiredChar('l');
+    handler.endNull();
+  }
+
+  private void readTrue() {
+    handler.startBoolean();
+    read();
+    readRequiredChar('r');
+    readRequiredChar('u');
+    readRequiredChar('e');
+    handler.endBoolean(true);
+  }
+
+  private void readFalse() {
+    handler.startBoolean();
+    read();
+    readRequiredChar('a');
+    readRequiredChar('l');
+    readRequiredChar('s');
+    readRequiredChar('e');
+    handler.endBoolean(false);
+  }
+
+  private void readRequiredChar(char ch) {
+    if (!readChar(ch)) {
+      throw expected("'" + ch + "'");
+    }
+  }
+
+  private void readString() {
+    handler.startString();
+    handler.endString(readStringInternal(null));
+  }
+
+  private String readStringInternal(NameTable names) {
+    read();
+    captureLength = 0;
+    while (current != '"') {
+      if (current == '\\') {
+        readEscape();
+      } else if (current < 0x20) {
+        throw expected("valid string character");
+      } else if (current < 0x80) {
+        capture((char)current);
+        read();
+      } else {
+        readMultiByteChar();
+      }
+    }
+    String string = null;
+    if (names != null) {
+      string = names.lookup(captureBuffer, 0, captureLength);
+    }
+    if (string == null) {
+      string = capturedString();
+    }
+    read();
+    return string;
+  }
+
+  /*
+   * JSON documents tend to repeat the same short strings over and over (member names, tags, small
+   * numbers-as-strings), so those come from a small direct-mapped cache instead of being copied out
+   * of the capture buffer each time.
+   */
+  private String capturedString() {
+    if (captureLength > MAX_CACHED_STRING_LENGTH) {
+      return new String(captureBuffer, 0, captureLength);
+    }
+    int hash = 0;
+    for (int i = 0; i < captureLength; i++) {
+      hash = 31 * hash + captureBuffer[i];
+    }
+    int slot = (hash ^ (hash >>> 16)) & (STRING_CACHE_SIZE - 1);
+    String cached = stringCache[slot];
+    if (cached != null && cached.length() == captureLength && capturedEquals(cached)) {
+      return cached;
+    }
+    String string = new String(captureBuffer, 0, captureLength);
+    stringCache[slot] = string;
+    return string;
+  }
+
+  private boolean capturedEquals(String string) {
+    for (int i = 0; i < captureLength; i++) {
+      if (string.charAt(i) != captureBuffer[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void readEscape() {
+    read();
+    switch (current) {
+      case '"':
+      case '/':
+      case '\\':
+        capture((char)current);
+        break;
+      case 'b':
+        capture('\b');
+        break;
+      case 'f':
+        capture('\f');
+        break;
+      case 'n':
+        capture('\n');
+        break;
+      case 'r':
+        capture('\r');
+        break;
+      case 't':
+        capture('\t');
+        break;
+      case 'u':
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+          read();
+          if (!isHexDigit()) {
+            throw expected("hexadecimal digit");
+          }
+          value = (value << 4) | Character.digit(current, 16);
+        }
+        capture((char)value);
+        break;
+      default:
+        throw expected("valid escape sequence");
+    }
+    read();
+  }
+
+  /*
+   * Decodes one UTF-8 sequence starting with the lead byte in current. Overlong encodings,
+   * surrogates and truncated sequences are rejected like a CharsetDecoder with REPORT would.
+   */
+  private void readMultiByteChar() {
+    int lead = current;
+    int codePoint;
+    int min;
+    int length;
+    if (lead >= 0xC2 && lead <= 0xDF) {
+      codePoint = lead & 0x1F;
+      min = 0x80;
+      length = 1;
+    } else if (lead >= 0xE0 && lead <= 0xEF) {
+      codePoint = lead & 0x0F;
+      min = 0x800;
+      length = 2;
+    } else if (lead >= 0xF0 && lead <= 0xF4) {
+      codePoint = lead & 0x07;
+      min = 0x10000;
+      length = 3;
+    } else {
+      throw error("Malformed UTF-8 input");
+    }
+    for (int i = 0; i < length; i++) {
+      read();
+      if (current == -1 || (current & 0xC0) != 0x80) {
+        throw error("Malformed UTF-8 input");
+      }
+      codePoint = (codePoint << 6) | (current & 0x3F);
+    }
+    if (codePoint < min || codePoint > Character.MAX_CODE_POINT
+        || codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE) {
+      throw error("Malformed UTF-8 input");
+    }
+    if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+      capture((char)codePoint);
+    } else {
+      capture(Character.highSurrogate(codePoint));
+      capture(Character.lowSurrogate(codePoint));
+    }
+    read();
+  }
+
+  private void readNumber() {
+    handler.startNumber();
+    int start = index - 1;
+    boolean negative = readChar('-');
+    int firstDigit = current;
+    if (!readDigit()) {
+      throw expected("digit");
+    }
+    // the value is only used if there are few enough digits for it not to overflow
+    int value = firstDigit - '0';
+    int digits = 1;
+    if (firstDigit != '0') {
+      while (isDigit()) {
+        value = value * 10 + current - '0';
+        digits++;
+        read();
+      }
+    }
+    boolean fraction = readFraction();
+    boolean exponent = readExponent();
+    if (fraction || exponent || digits > MAX_INT_DIGITS || negative && value == 0) {
+      int end = index - 1;
+      // numbers are plain ASCII, no decoding needed
+      captureLength = 0;
+      for (int i = start; i < end; i++) {
+        capture((char)input.get(i));
+      }
+      handler.endNumber(new String(captureBuffer, 0, captureLength));
+    } else {
+      handler.endInt(negative ? -value : value);
+    }
+  }
+
+  private boolean readFraction() {
+    if (!readChar('.')) {
+      return false;
+    }
+    if (!readDigit()) {
+      throw expected("digit");
+    }
+    while (readDigit()) {
+    }
+    return true;
+  }
+
+  private boolean readExponent() {
+    if (!readChar('e') && !readChar('E')) {
+      return false;
+    }
+    if (!readChar('+')) {
+      readChar('-');
+    }
+    if (!readDigit()) {
+      throw expected("digit");
+    }
+    while (readDigit()) {
+    }
+    return true;
+  }
+
+  private boolean readChar(char ch) {
+    if (current != ch) {
+      return false;
+    }
+    read();
+    return true;
+  }
+
+  private boolean readDigit() {
+    if (!isDigit()) {
+      return false;
+    }
+    read();
+    return true;
+  }
+
+  private void skipWhiteSpace() {
+    while (isWhiteSpace()) {
+      read();
+    }
+  }
+
+  private void read() {
+    if (index >= limit) {
+      if (index == limit) {
+        index++;
+      }
+      current = -1;
+      return;
+    }
+    if (current == '\n') {
+      line++;
+      lineOffset = index;
+    }
+    current = input.get(index++) & 0xFF;
+  }
+
+  private void capture(char ch) {
+    if (captureLength == captureBuffer.length) {
+      char[] grown = new char[captureBuffer.length * 2];
+      System.arraycopy(captureBuffer, 0, grown, 0, captureLength);
+      captureBuffer = grown;
+    }
+    captureBuffer[captureLength++] = ch;
+  }
+
+  Location getLocation() {
+    int offset = index - 1;
+    int column = offset - lineOffset + 1;
+    return new Location(offset, line, column);
+  }
+
+  private ParseException expected(String expected) {
+    if (isEndOfText()) {
+      return error("Unexpected end of input");
+    }
+    return error("Expected " + expected);
+  }
+
+  private ParseException error(String message) {
+    return new ParseException(message, getLocation());
+  }
+
+  private boolean isWhiteSpace() {
+    return current == ' ' || current == '\t' || current == '\n' || current == '\r';
+  }
+
+  private boolean isDigit() {
+    return current >= '0' && current <= '9';
+  }
+
+  private boolean isHexDigit() {
+    return current >= '0' && current <= '9'
+        || current >= 'a' && current <= 'f'
+        || current >= 'A' && current <= 'F';
+  }
+
+  private boolean isEndOfText() {
+    return current == -1;
+  }
+
+}
@@ -51,10 +51,12 @@ package com.eclipsesource.json;
  * @param <O>
  *          The type of handlers used for JSON objects
  * @see JsonParser
+ * @see JsonByteParser
  */
 public abstract class JsonHandler<A, O> {
 
   JsonParser parser;
+  JsonByteParser byteParser;
 
   /**
    * Returns the current parser location.
@@ -62,7 +64,19 @@ public abstract class JsonHandler<A, O> {
    * @return the current parser location
    */
   protected Location getLocation() {
-    return parser.getLocation();
+    return byteParser != null ? byteParser.getLocation() : parser.getLocation();
+  }
+
+  /**
+   * Creates a ParseException at the current parser location, for handlers that reject input the
+   * parser itself accepts. The handler has to throw it.
+   *
+   * @param message
+   *          what is wrong with the input
+   * @return the exception
+   */
+  protected ParseException error(String message) {
+    return new ParseException(message, getLocation());
   }
 
   /**
@@ -130,6 +144,23 @@ public abstract class JsonHandler<A, O> {
   public void endNumber(String string) {
   }
 
+  /**
+   * Indicates the end of a number in the JSON input that is an integer small enough for an
+   * <code>int</code>, like <code>42</code> or <code>-7</code>. The parser calls this method instead of
+   * {@link #endNumber(String)} for such numbers, so that handlers can use the value without parsing
+   * it again. Other numbers, e.g. <code>1.5</code>, <code>1e3</code> or <code>-0</code>, are passed to
+   * {@link #endNumber(String)} as usual.
+   * <p>
+   * By default, this method passes the number's text to {@link #endNumber(String)}.
+   * </p>
+   *
+   * @param value
+   *          the parsed number
+   */
+  public void endInt(int value) {
+    endNumber(Integer.toString(value, 10));
+  }
+
   /**
    * Indicates the beginning of an array in the JSON input. This method will be called when reading
    * the opening square bracket character (<code>'['</code>).
@@ -27,23 +27,54 @@ import java.io.IOException;
 @SuppressWarnings("serial") // use default serial UID
 class JsonNumber extends JsonValue {
 
-  private final String string;
+  // ints from 0 to this are shared, they make up most of the numbers in typical documents
+  private static final int CACHE_MAX = 1023;
+  private static final JsonNumber[] CACHE = new JsonNumber[CACHE_MAX + 1];
+
+  static {
+    for (int i = 0; i <= CACHE_MAX; i++) {
+      CACHE[i] = new JsonNumber(i);
+    }
+  }
+
+  // null for numbers created from an int until toString() is first called
+  private String string;
+  private final boolean isInt;
+  private final int intValue;
 
   JsonNumber(String string) {
     if (string == null) {
       throw new NullPointerException("string is null");
     }
     this.string = string;
+    isInt = false;
+    intValue = 0;
+  }
+
+  private JsonNumber(int value) {
+    isInt = true;
+    intValue = value;
+  }
+
+  /**
+   * Returns a number for the given int. Unlike numbers created from a string, it doesn't have to be
+   * parsed again by {@link #asInt()} and friends.
+   */
+  static JsonNumber of(int value) {
+    return value >= 0 && value <= CACHE_MAX ? CACHE[value] : new JsonNumber(value);
   }
 
   @Override
   public String toString() {
+    if (string == null) {
+      string = Integer.toString(intValue, 10);
+    }
     return string;
   }
 
   @Override
   void write(JsonWriter writer) throws IOException {
-    writer.writeNumber(string);
+    writer.writeNumber(toString());
   }
 
   @Override
@@ -53,27 +84,27 @@ class JsonNumber extends JsonValue {
 
   @Override
   public int asInt() {
-    return Integer.parseInt(string, 10);
+    return isInt ? intValue : Integer.parseInt(string, 10);
   }
 
   @Override
   public long asLong() {
-    return Long.parseLong(string, 10);
+    return isInt ? intValue : Long.parseLong(string, 10);
   }
 
   @Override
   public float asFloat() {
-    return Float.parseFloat(string);
+    return isInt ? intValue : Float.parseFloat(string);
   }
 
   @Override
   public double asDouble() {
-    return Double.parseDouble(string);
+    return isInt ? intValue : Double.parseDouble(string);
   }
 
   @Override
   public int hashCode() {
-    return string.hashCode();
+    return toString().hashCode();
   }
 
   @Override
@@ -88,7 +119,10 @@ class JsonNumber extends JsonValue {
       return false;
     }
     JsonNumber other = (JsonNumber)object;
-    return string.equals(other.string);
+    if (isInt && other.isInt) {
+      return intValue == other.intValue;
+    }
+    return toString().equals(other.toString());
   }
 
 }
@@ -100,16 +100,25 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
       throw new NullPointerException("object is null");
     }
     if (unmodifiable) {
-      names = Collections.unmodifiableList(object.names);
-      values = Collections.unmodifiableList(object.values);
+      names = Collections.unmodifiableList(object.nameList());
+      values = Collections.unmodifiableList(object.valueList());
     } else {
-      names = new ArrayList<String>(object.names);
-      values = new ArrayList<JsonValue>(object.values);
+      names = new ArrayList<String>(object.nameList());
+      values = new ArrayList<JsonValue>(object.valueList());
     }
     table = new HashIndexTable();
     updateHashIndex();
   }
 
+  /*
+   * For subclasses that keep their members elsewhere and override every method that would
+   * otherwise use the given lists, see JsonRecord.
+   */
+  JsonObject(List<String> names, List<JsonValue> values) {
+    this.names = names;
+    this.values = values;
+  }
+
   /**
    * Reads a JSON object from the given reader.
    * <p>
@@ -700,7 +709,7 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
    * @return a list of the names in this object
    */
   public List<String> names() {
-    return Collections.unmodifiableList(names);
+    return Collections.unmodifiableList(nameList());
   }
 
   /**
@@ -710,8 +719,8 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
    * @return an iterator over the members of this object
    */
   public Iterator<Member> iterator() {
-    final Iterator<String> namesIterator = names.iterator();
-    final Iterator<JsonValue> valuesIterator = values.iterator();
+    final Iterator<String> namesIterator = nameList().iterator();
+    final Iterator<JsonValue> valuesIterator = valueList().iterator();
     return new Iterator<JsonObject.Member>() {
 
       public boolean hasNext() {
@@ -734,8 +743,8 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
   @Override
   void write(JsonWriter writer) throws IOException {
     writer.writeObjectOpen();
-    Iterator<String> namesIterator = names.iterator();
-    Iterator<JsonValue> valuesIterator = values.iterator();
+    Iterator<String> namesIterator = nameList().iterator();
+    Iterator<JsonValue> valuesIterator = valueList().iterator();
     if (namesIterator.hasNext()) {
       writer.writeMemberName(namesIterator.next());
       writer.writeMemberSeparator();
@@ -763,8 +772,8 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
   @Override
   public int hashCode() {
     int result = 1;
-    result = 31 * result + names.hashCode();
-    result = 31 * result + values.hashCode();
+    result = 31 * result + nameList().hashCode();
+    result = 31 * result + valueList().hashCode();
     return result;
   }
 
@@ -776,11 +785,20 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
     if (obj == null) {
       return false;
     }
-    if (getClass() != obj.getClass()) {
+    // a JsonRecord equals the JsonObject with the same members
+    if (!(obj instanceof JsonObject)) {
       return false;
     }
     JsonObject other = (JsonObject)obj;
-    return names.equals(other.names) && values.equals(other.values);
+    return nameList().equals(other.nameList()) && valueList().equals(other.valueList());
+  }
+
+  List<String> nameList() {
+    return names;
+  }
+
+  List<JsonValue> valueList() {
+    return values;
   }
 
   int indexOf(String name) {
@@ -31,6 +31,8 @@ import java.io.StringReader;
  */
 public class JsonParser {
 
+  // any integer of up to 9 digits fits in an int
+  private static final int MAX_INT_DIGITS = 9;
   private static final int MAX_NESTING_LEVEL = 1000;
   private static final int MIN_BUFFER_SIZE = 10;
   private static final int DEFAULT_BUFFER_SIZE = 1024;
@@ -47,6 +49,7 @@ public class JsonParser {
   private StringBuilder captureBuffer;
   private int captureStart;
   private int nestingLevel;
+  private NameTable nameTable;
 
   /*
    * |                      bufferOffset
@@ -71,6 +74,18 @@ public class JsonParser {
     }
     this.handler = (JsonHandler<Object, Object>)handler;
     handler.parser = this;
+    handler.byteParser = null;
+  }
+
+  /**
+   * Makes the parser return member names that are in the given table as the table's own String
+   * instances, without allocating a new String for each one.
+   *
+   * @param nameTable
+   *          the names to intern, or <code>null</code> to allocate every name
+   */
+  public void setNameTable(NameTable nameTable) {
+    this.nameTable = nameTable;
   }
 
   /**
@@ -258,7 +273,7 @@ public class JsonParser {
     if (current != '"') {
       throw expected("name");
     }
-    return readStringInternal();
+    return readStringInternal(nameTable);
   }
 
   private void readNull() throws IOException {
@@ -297,10 +312,10 @@ public class JsonParser {
 
   private void readString() throws IOException {
     handler.startString();
-    handler.endString(readStringInternal());
+    handler.endString(readStringInternal(null));
   }
 
-  private String readStringInternal() throws IOException {
+  private String readStringInternal(NameTable names) throws IOException {
     read();
     startCapture();
     while (current != '"') {
@@ -314,7 +329,7 @@ public class JsonParser {
         read();
       }
     }
-    String string = endCapture();
+    String string = endCapture(names);
     read();
     return string;
   }
@@ -362,18 +377,29 @@ public class JsonParser {
   private void readNumber() throws IOException {
     handler.startNumber();
     startCapture();
-    readChar('-');
+    boolean negative = readChar('-');
     int firstDigit = current;
     if (!readDigit()) {
       throw expected("digit");
     }
+    // the value is only used if there are few enough digits for it not to overflow
+    int value = firstDigit - '0';
+    int digits = 1;
     if (firstDigit != '0') {
-      while (readDigit()) {
+      while (isDigit()) {
+        value = value * 10 + current - '0';
+        digits++;
+        read();
       }
     }
-    readFraction();
-    readExponent();
-    handler.endNumber(endCapture());
+    boolean fraction = readFraction();
+    boolean exponent = readExponent();
+    if (fraction || exponent || digits > MAX_INT_DIGITS || negative && value == 0) {
+      handler.endNumber(endCapture(null));
+    } else {
+      cancelCapture();
+      handler.endInt(negative ? -value : value);
+    }
   }
 
   private boolean readFraction() throws IOException {
@@ -460,7 +486,12 @@ public class JsonParser {
     captureStart = -1;
   }
 
-  private String endCapture() {
+  private void cancelCapture() {
+    captureStart = -1;
+    captureBuffer.setLength(0);
+  }
+
+  private String endCapture(NameTable names) {
     int start = captureStart;
     int end = index - 1;
     captureStart = -1;
@@ -470,6 +501,12 @@ public class JsonParser {
       captureBuffer.setLength(0);
       return captured;
     }
+    if (names != null) {
+      String name = names.lookup(buffer, start, end - start);
+      if (name != null) {
+        return name;
+      }
+    }
     return new String(buffer, start, end - start);
   }
 
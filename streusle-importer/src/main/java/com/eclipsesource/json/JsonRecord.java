@@ -0,0 +1,121 @@
+package com.eclipsesource.json;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * An unmodifiable JSON object whose members are those of a {@link RecordSchema}, in schema order.
+ * It behaves like any other JsonObject (and equals the JsonObject with the same members), but each
+ * member is kept in the slot its name has in the schema, so it takes far less memory than a
+ * JsonObject, and callers that know the schema can read members with {@link #get(int)} instead of
+ * looking their names up.
+ * <p>
+ * JsonRecords are made by a {@link JsonRecordHandler}. Attempts to modify one result in an
+ * <code>UnsupportedOperationException</code>.
+ * </p>
+ */
+@SuppressWarnings("serial") // use default serial UID
+public final class JsonRecord extends JsonObject {
+
+  private final RecordSchema schema;
+  // indexed by slot, null for the members this object doesn't have
+  private final JsonValue[] slots;
+  private final int size;
+
+  JsonRecord(RecordSchema schema, JsonValue[] slots, int size) {
+    super(null, null);
+    this.schema = schema;
+    this.slots = slots;
+    this.size = size;
+  }
+
+  /**
+   * Returns the schema this object follows.
+   *
+   * @return the schema
+   */
+  public RecordSchema getSchema() {
+    return schema;
+  }
+
+  /**
+   * Returns the value of the member in the given slot of this object's schema.
+   *
+   * @param slot
+   *          the slot, see {@link RecordSchema#indexOf(String)}
+   * @return the value, or <code>null</code> if this object does not have that member
+   */
+  public JsonValue get(int slot) {
+    return slots[slot];
+  }
+
+  @Override
+  public JsonValue get(String name) {
+    if (name == null) {
+      throw new NullPointerException("name is null");
+    }
+    int slot = schema.indexOf(name);
+    return slot != -1 ? slots[slot] : null;
+  }
+
+  @Override
+  public JsonObject add(String name, JsonValue value) {
+    throw new UnsupportedOperationException("JsonRecord is unmodifiable");
+  }
+
+  @Override
+  public JsonObject set(String name, JsonValue value) {
+    throw new UnsupportedOperationException("JsonRecord is unmodifiable");
+  }
+
+  @Override
+  public JsonObject remove(String name) {
+    throw new UnsupportedOperationException("JsonRecord is unmodifiable");
+  }
+
+  @Override
+  public JsonObject merge(JsonObject object) {
+    throw new UnsupportedOperationException("JsonRecord is unmodifiable");
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  List<String> nameList() {
+    List<String> names = new ArrayList<String>(size);
+    for (int i = 0; i < slots.length; i++) {
+      if (slots[i] != null) {
+        names.add(schema.getName(i));
+      }
+    }
+    return names;
+  }
+
+  @Override
+  List<JsonValue> valueList() {
+    List<JsonValue> values = new ArrayList<JsonValue>(size);
+    for (JsonValue value : slots) {
+      if (value != null) {
+        values.add(value);
+      }
+    }
+    return values;
+  }
+
+  /*
+   * Serialized as a plain JsonObject, which doesn't need the schema to be serializable.
+   */
+  private Object writeReplace() {
+    return new JsonObject(this);
+  }
+
+}
@@ -0,0 +1,114 @@
+package com.eclipsesource.json;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * A handler that builds a tree of {@link JsonValue}s like {@link Json.DefaultHandler}, except that
+ * objects that follow one of the given schemas are made into {@link JsonRecord}s. An object follows
+ * a schema if all of its member names are in the schema, in schema order, with no duplicates. The
+ * schema is picked by the object's first member name, so no two schemas may share a name. Every
+ * other object becomes a plain {@link JsonObject}.
+ * <p>
+ * Members are collected in a buffer per nesting level that is reused from object to object, so
+ * this handler passes <code>null</code> as the object to the object events. Subclasses should
+ * leave those alone and use {@link #getValue()} once an object has ended.
+ * </p>
+ */
+public class JsonRecordHandler extends Json.DefaultHandler {
+
+  private final Map<String, RecordSchema> schemasByName = new HashMap<String, RecordSchema>();
+  private MemberBuffer[] buffers = new MemberBuffer[8];
+  private int depth;
+
+  /**
+   * Creates a handler that makes records for the given schemas.
+   *
+   * @param schemas
+   *          the schemas, which must not have any member names in common
+   */
+  public JsonRecordHandler(RecordSchema... schemas) {
+    for (RecordSchema schema : schemas) {
+      for (int i = 0; i < schema.size(); i++) {
+        if (schemasByName.put(schema.getName(i), schema) != null) {
+          throw new IllegalArgumentException("Schemas share the name " + schema.getName(i));
+        }
+      }
+    }
+  }
+
+  @Override
+  public JsonObject startObject() {
+    if (depth == buffers.length) {
+      buffers = Arrays.copyOf(buffers, depth * 2);
+    }
+    if (buffers[depth] == null) {
+      buffers[depth] = new MemberBuffer();
+    }
+    buffers[depth++].size = 0;
+    return null;
+  }
+
+  @Override
+  public void endObjectValue(JsonObject object, String name) {
+    buffers[depth - 1].add(name, value);
+  }
+
+  @Override
+  public void endObject(JsonObject object) {
+    MemberBuffer buffer = buffers[--depth];
+    value = buffer.toObject();
+    // don't keep the members alive until the buffer is next used
+    Arrays.fill(buffer.values, 0, buffer.size, null);
+  }
+
+  private final class MemberBuffer {
+
+    String[] names = new String[16];
+    JsonValue[] values = new JsonValue[16];
+    int size;
+
+    void add(String name, JsonValue value) {
+      if (size == names.length) {
+        names = Arrays.copyOf(names, size * 2);
+        values = Arrays.copyOf(values, size * 2);
+      }
+      names[size] = name;
+      values[size++] = value;
+    }
+
+    JsonObject toObject() {
+      JsonObject record = size == 0 ? null : toRecord();
+      if (record != null) {
+        return record;
+      }
+      JsonObject object = new JsonObject();
+      for (int i = 0; i < size; i++) {
+        object.add(names[i], values[i]);
+      }
+      return object;
+    }
+
+    private JsonRecord toRecord() {
+      RecordSchema schema = schemasByName.get(names[0]);
+      if (schema == null) {
+        return null;
+      }
+      JsonValue[] slots = new JsonValue[schema.size()];
+      int slot = 0;
+      for (int i = 0; i < size; i++) {
+        slot = schema.indexOf(names[i], slot);
+        if (slot == -1) {
+          // not in the schema, or out of order
+          return null;
+        }
+        slots[slot++] = values[i];
+      }
+      return new JsonRecord(schema, slots, size);
+    }
+
+  }
+
+}
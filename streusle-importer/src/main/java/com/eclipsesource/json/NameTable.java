@@ -0,0 +1,106 @@
+package com.eclipsesource.json;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+
+/**
+ * A fixed set of member names that a parser can hand out instead of allocating a new String for each
+ * name it reads. Documents where every object repeats the same handful of names (e.g. a list of
+ * records) otherwise produce one String per name per object.
+ * <p>
+ * The names are kept in a perfect hash table: a table size and seed are chosen when the table is
+ * built so that no two names share a slot, and a lookup hashes the characters straight from the
+ * parser's buffer, then compares them against the one name in that slot. Names that aren't in the
+ * table are read as usual.
+ * </p>
+ *
+ * @see JsonParser#setNameTable(NameTable)
+ * @see JsonByteParser#setNameTable(NameTable)
+ */
+public final class NameTable {
+
+  private static final int MAX_SEEDS = 256;
+
+  private final String[] slots;
+  private final int mask;
+  private final int seed;
+
+  /**
+   * Creates a table of the given names. Duplicates are ignored.
+   *
+   * @param names
+   *          the names to intern
+   */
+  public NameTable(String... names) {
+    if (names == null) {
+      throw new NullPointerException("names is null");
+    }
+    Set<String> distinct = new LinkedHashSet<String>();
+    for (String name : names) {
+      if (name == null) {
+        throw new NullPointerException("name is null");
+      }
+      distinct.add(name);
+    }
+    int size = Integer.highestOneBit(Math.max(1, distinct.size()) * 2 - 1) * 2;
+    while (true) {
+      for (int candidate = 0; candidate < MAX_SEEDS; candidate++) {
+        String[] table = tryBuild(distinct, size, candidate);
+        if (table != null) {
+          slots = table;
+          mask = size - 1;
+          seed = candidate;
+          return;
+        }
+      }
+      size *= 2;
+    }
+  }
+
+  private static String[] tryBuild(Set<String> names, int size, int seed) {
+    String[] table = new String[size];
+    for (String name : names) {
+      int slot = hash(name, seed) & (size - 1);
+      if (table[slot] != null) {
+        return null;
+      }
+      table[slot] = name;
+    }
+    return table;
+  }
+
+  /**
+   * Returns the name made up of the given characters, or <code>null</code> if there is no such name
+   * in the table.
+   */
+  String lookup(char[] chars, int offset, int length) {
+    int hash = seed;
+    for (int i = offset; i < offset + length; i++) {
+      hash = (hash ^ chars[i]) * 0x01000193;
+    }
+    String name = slots[mix(hash) & mask];
+    if (name == null || name.length() != length) {
+      return null;
+    }
+    for (int i = 0; i < length; i++) {
+      if (name.charAt(i) != chars[offset + i]) {
+        return null;
+      }
+    }
+    return name;
+  }
+
+  private static int hash(String name, int seed) {
+    int hash = seed;
+    for (int i = 0; i < name.length(); i++) {
+      hash = (hash ^ name.charAt(i)) * 0x01000193;
+    }
+    return mix(hash);
+  }
+
+  private static int mix(int hash) {
+    return hash ^ (hash >>> 15) ^ (hash >>> 7);
+  }
+
+}
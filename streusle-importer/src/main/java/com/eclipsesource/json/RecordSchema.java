@@ -0,0 +1,87 @@
+package com.eclipsesource.json;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * The member names of a kind of object that always has (some of) the same members in the same
+ * order, e.g. the records in a list of records. Objects that follow a schema can be read into a
+ * {@link JsonRecord}, which keeps each member in a fixed slot instead of in lists and a hash table.
+ *
+ * @see JsonRecordHandler
+ */
+public final class RecordSchema {
+
+  private final String[] names;
+  private final Map<String, Integer> slots;
+
+  /**
+   * Creates a schema with the given member names, in the order they appear in objects. A name's
+   * position in <code>names</code> is its slot.
+   *
+   * @param names
+   *          the member names, must not contain duplicates
+   */
+  public RecordSchema(String... names) {
+    if (names == null) {
+      throw new NullPointerException("names is null");
+    }
+    this.names = names.clone();
+    slots = new HashMap<String, Integer>();
+    for (int i = 0; i < names.length; i++) {
+      if (names[i] == null) {
+        throw new NullPointerException("name is null");
+      }
+      if (slots.put(names[i], i) != null) {
+        throw new IllegalArgumentException("Duplicate name in schema: " + names[i]);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of slots in this schema.
+   *
+   * @return the number of member names
+   */
+  public int size() {
+    return names.length;
+  }
+
+  /**
+   * Returns the member name for the given slot.
+   *
+   * @param slot
+   *          the slot
+   * @return the member name
+   */
+  public String getName(int slot) {
+    return names[slot];
+  }
+
+  /**
+   * Returns the slot for the given member name.
+   *
+   * @param name
+   *          the member name
+   * @return the name's slot, or <code>-1</code> if it is not in this schema
+   */
+  public int indexOf(String name) {
+    Integer slot = slots.get(name);
+    return slot != null ? slot.intValue() : -1;
+  }
+
+  /*
+   * Like indexOf, but only looks at slots from the given one on. Members usually come in schema
+   * order, so this is usually the first slot tried.
+   */
+  int indexOf(String name, int fromSlot) {
+    for (int i = fromSlot; i < names.length; i++) {
+      if (names[i] == name || names[i].equals(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+}
@@ -0,0 +1,98 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the document graphs StreusleMapper builds on disk, keyed on a hash of the document's JSON bytes,
+ * {@link #MAPPER_VERSION} and any settings that change the graph, the document's ID among them. When a document hasn't changed since
+ * the last run, its graph is loaded from here instead of being mapped again. Graphs are stored as
+ * {@link GraphSnapshot}s.
+ */
+class DocumentCache {
+    private static final Logger logger = LoggerFactory.getLogger(DocumentCache.class);
+
+    /**
+     * Bump this whenever StreusleMapper starts building different graphs for the same JSON, so that
+     * graphs cached by older versions aren't used anymore.
+     */
+    static final int MAPPER_VERSION = 4;
+
+    private static final String EXTENSION = ".snap";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path directory;
+
+    DocumentCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @param input the document's JSON. Its position and limit are left alone.
+     * @param settings anything besides the JSON that the graph depends on
+     * @return a key for the document's graph: the same key means the same graph
+     */
+    String key(ByteBuffer input, String settings) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform has to support SHA-256
+            throw new IllegalStateException(e);
+        }
+        digest.update(input.duplicate());
+        digest.update((byte) 0);
+        digest.update(("v" + MAPPER_VERSION + " " + settings).getBytes(StandardCharsets.UTF_8));
+        byte[] hash = digest.digest();
+        char[] key = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            key[2 * i] = HEX[(hash[i] >> 4) & 0xF];
+            key[2 * i + 1] = HEX[hash[i] & 0xF];
+        }
+        return new String(key);
+    }
+
+    /**
+     * @return the cached graph for key, or null if there isn't one (or it can't be read)
+     */
+    SDocumentGraph load(String key) {
+        Path file = directory.resolve(key + EXTENSION);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return GraphSnapshot.load(file);
+        } catch (IOException | RuntimeException e) {
+            // a damaged cache entry just means mapping the document again
+            logger.warn("Could not load the cached graph {}, ignoring it.", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Cache graph under key. It's written to a temporary file first and then moved into place, so a
+     * document that's mapped at the same time by someone else, or an interrupted run, can't leave a
+     * half-written graph behind.
+     */
+    void save(String key, SDocumentGraph graph) throws IOException {
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, key, EXTENSION + ".tmp");
+        try {
+            GraphSnapshot.save(graph, temp);
+            Files.move(temp, directory.resolve(key + EXTENSION), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import java.util.List;
+
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+
+/**
+ * A token's enhanced dependencies (the "edeps" field, DEPS in CONLLU), e.g. "5:nmod:poss|8.1:nsubj".
+ * Each |-separated entry is a head ID, a colon, and a deprel that may contain more colons. We scan the
+ * string once and only remember where each entry's pieces are, so nothing is split or rejoined, and the
+ * head and deprel strings are only made when someone asks for them. Empty entries are skipped.
+ */
+final class EnhancedDeps {
+    static final EnhancedDeps EMPTY = new EnhancedDeps("", 0, new int[0], new int[0]);
+
+    private final String edeps;
+    private final int size;
+    // entry k is edeps[starts[k], ends[k]), and its head ends at colons[k] (== ends[k] if there's no colon)
+    private final int[] starts;
+    private final int[] colons;
+    private final int[] ends;
+    // entry k's head as an int, or -1 if it isn't a plain integer ID (e.g. 8.1)
+    private final int[] intHeads;
+
+    private EnhancedDeps(String edeps, int size, int[] starts, int[] ends) {
+        this.edeps = edeps;
+        this.size = size;
+        this.starts = starts;
+        this.ends = ends;
+        this.colons = new int[size];
+        this.intHeads = new int[size];
+        for (int k = 0; k < size; k++) {
+            int colon = edeps.indexOf(':', starts[k]);
+            colons[k] = colon < 0 || colon > ends[k] ? ends[k] : colon;
+            intHeads[k] = parseId(edeps, starts[k], colons[k]);
+        }
+    }
+
+    /**
+     * @param edeps an edeps string, or null
+     */
+    static EnhancedDeps parse(String edeps) {
+        if (edeps == null || edeps.isEmpty()) {
+            return EMPTY;
+        }
+        int count = 1;
+        for (int i = 0; i < edeps.length(); i++) {
+            if (edeps.charAt(i) == '|') {
+                count++;
+            }
+        }
+        int[] starts = new int[count];
+        int[] ends = new int[count];
+        int size = 0;
+        int start = 0;
+        while (start <= edeps.length()) {
+            int end = edeps.indexOf('|', start);
+            if (end < 0) {
+                end = edeps.length();
+            }
+            if (end > start) {
+                starts[size] = start;
+                ends[size] = end;
+                size++;
+            }
+            start = end + 1;
+        }
+        return new EnhancedDeps(edeps, size, starts, ends);
+    }
+
+    /**
+     * @param value a token's "edeps" value, which may be missing or null
+     */
+    static EnhancedDeps parse(JsonValue value) {
+        return value == null || value.isNull() ? EMPTY : parse(value.asString());
+    }
+
+    /**
+     * @return the parsed "edeps" of every token, parallel to tokens
+     */
+    static EnhancedDeps[] parseAll(List<JsonObject> tokens) {
+        EnhancedDeps[] parsed = new EnhancedDeps[tokens.size()];
+        for (int i = 0; i < parsed.length; i++) {
+            parsed[i] = parse(tokens.get(i).get("edeps"));
+        }
+        return parsed;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return entry k's head ID, e.g. "5" or "8.1"
+     */
+    String head(int k) {
+        return edeps.substring(starts[k], colons[k]);
+    }
+
+    /**
+     * @return entry k's head ID as an int, or -1 if it's not a plain integer (i.e. an ellipsis token)
+     */
+    int intHead(int k) {
+        return intHeads[k];
+    }
+
+    /**
+     * @return whether entry k's head is exactly id
+     */
+    boolean headEquals(int k, String id) {
+        return id != null && id.length() == colons[k] - starts[k]
+                && edeps.regionMatches(starts[k], id, 0, id.length());
+    }
+
+    /**
+     * @return entry k's deprel, e.g. "nmod:poss", or "" if it has none
+     */
+    String deprel(int k) {
+        return colons[k] == ends[k] ? "" : edeps.substring(colons[k] + 1, ends[k]);
+    }
+
+    /**
+     * @return whether there's an entry for this head with this deprel, or with a subtype of it that the
+     *         enhanced graph added (5:obl:to for 5:obl). Unlike looking for "head:deprel" in the string,
+     *         1:nmod doesn't match 11:nmod, and 5:ob doesn't match 5:obl.
+     */
+    boolean contains(int head, String deprel) {
+        for (int k = 0; k < size; k++) {
+            int length = ends[k] - colons[k] - 1;
+            if (intHeads[k] == head && length >= deprel.length()
+                    && edeps.regionMatches(colons[k] + 1, deprel, 0, deprel.length())
+                    && (length == deprel.length() || edeps.charAt(colons[k] + 1 + deprel.length()) == ':')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Same rules as TokenTable: a non-negative int written without leading zeros, and at most 9 digits.
+     */
+    private static int parseId(String s, int start, int end) {
+        int length = end - start;
+        if (length == 0 || length > 9 || (length > 1 && s.charAt(start) == '0')) {
+            return -1;
+        }
+        int id = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
+}
@@ -0,0 +1,117 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.georgetown.uis.corpling.pepper.streusle.SentenceStage.Node;
+
+/**
+ * A |-separated list of Key=Value pairs, as in FEATS and MISC, e.g. "Number=Sing|Person=3". The same few
+ * bundles make up almost every token's FEATS (and MISC is usually just SpaceAfter=No), so we parse each
+ * distinct string once and keep the result, with its keys and values already pooled. Like
+ * {@link StringPool}, the cache stops growing once it's full, and it's safe to use from any thread.
+ * <p>
+ * An entry without an "=" (a bare flag, which MISC allows) gets an empty value, and only the first "="
+ * separates the key from the value. Empty entries are skipped.
+ */
+final class FeatureList {
+    static final int MAX_LENGTH = 256;
+    static final int MAX_SIZE = 1 << 14;
+
+    private static final ConcurrentHashMap<String, FeatureList> CACHE = new ConcurrentHashMap<>();
+
+    private final String[] keys;
+    private final String[] values;
+
+    private FeatureList(String[] keys, String[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * @return features parsed, from the cache if we've seen them before
+     */
+    static FeatureList of(String features) {
+        if (features.length() > MAX_LENGTH) {
+            return parse(features);
+        }
+        FeatureList list = CACHE.get(features);
+        if (list != null) {
+            return list;
+        }
+        list = parse(features);
+        if (CACHE.size() < MAX_SIZE) {
+            FeatureList cached = CACHE.putIfAbsent(features, list);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        return list;
+    }
+
+    /**
+     * @return whether features has been parsed into the cache
+     */
+    static boolean isCached(String features) {
+        return CACHE.containsKey(features);
+    }
+
+    private static FeatureList parse(String features) {
+        int count = 1;
+        for (int i = 0; i < features.length(); i++) {
+            if (features.charAt(i) == '|') {
+                count++;
+            }
+        }
+        String[] keys = new String[count];
+        String[] values = new String[count];
+        int size = 0;
+        int start = 0;
+        while (start <= features.length()) {
+            int end = features.indexOf('|', start);
+            if (end < 0) {
+                end = features.length();
+            }
+            if (end > start) {
+                int equals = features.indexOf('=', start);
+                if (equals < 0 || equals > end) {
+                    keys[size] = StringPool.intern(features.substring(start, end));
+                    values[size] = "";
+                } else {
+                    keys[size] = StringPool.intern(features.substring(start, equals));
+                    values[size] = StringPool.intern(features.substring(equals + 1, end));
+                }
+                size++;
+            }
+            start = end + 1;
+        }
+        if (size < count) {
+            String[] trimmedKeys = new String[size];
+            String[] trimmedValues = new String[size];
+            System.arraycopy(keys, 0, trimmedKeys, 0, size);
+            System.arraycopy(values, 0, trimmedValues, 0, size);
+            return new FeatureList(trimmedKeys, trimmedValues);
+        }
+        return new FeatureList(keys, values);
+    }
+
+    int size() {
+        return keys.length;
+    }
+
+    String getKey(int i) {
+        return keys[i];
+    }
+
+    String getValue(int i) {
+        return values[i];
+    }
+
+    /**
+     * Annotate node with every pair, in order.
+     */
+    void annotate(SentenceStage stage, Node node) {
+        for (int i = 0; i < keys.length; i++) {
+            stage.annotate(node, keys[i], values[i]);
+        }
+    }
+}
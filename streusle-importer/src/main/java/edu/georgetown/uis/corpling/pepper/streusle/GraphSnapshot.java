@@ -0,0 +1,420 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.*;
+import org.corpus_tools.salt.core.SAnnotation;
+import org.corpus_tools.salt.core.SAnnotationContainer;
+import org.corpus_tools.salt.core.SLayer;
+import org.corpus_tools.salt.core.SNode;
+import org.corpus_tools.salt.core.SRelation;
+
+/**
+ * A compact binary format for the document graphs StreusleMapper builds, much smaller and faster to
+ * read and write than SaltXML. It only knows the kinds of things the mapper makes: one or more STextualDSs,
+ * STokens, SSpans, their textual, spanning and pointing relations, layers (edeps, cycle, govobj) and
+ * string-valued annotations. Anything else is an UnsupportedOperationException.
+ * <p>
+ * Every string goes in a string table at the front and is referred to by its position in it. IDs and
+ * names tend to be a shared prefix plus a number (salt:/corpus/doc#sTok12, reviews-086839-0003_4), so
+ * we store those as the prefix's position and the number. All integers are unsigned LEB128 varints.
+ * Nodes and relations are written in graph order with their IDs, so reading a snapshot gives back the
+ * same graph, IDs and order included.
+ */
+public final class GraphSnapshot {
+    private static final byte[] MAGIC = {'S', 'T', 'S', 'N'};
+    private static final int VERSION = 1;
+
+    private static final int TEXTUAL_DS = 0, TOKEN = 1, SPAN = 2;
+    private static final int TEXTUAL_RELATION = 0, SPANNING_RELATION = 1, POINTING_RELATION = 2;
+
+    private GraphSnapshot() {
+    }
+
+    public static void save(SDocumentGraph graph, Path file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            write(graph, out);
+        }
+    }
+
+    public static SDocumentGraph load(Path file) throws IOException {
+        return new Reader(Files.readAllBytes(file)).read();
+    }
+
+    public static void write(SDocumentGraph graph, OutputStream out) throws IOException {
+        new Writer().write(graph, out);
+    }
+
+    public static SDocumentGraph read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            bytes.write(buffer, 0, read);
+        }
+        return new Reader(bytes.toByteArray()).read();
+    }
+
+    private static class Writer {
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+        private final Map<SLayer, Integer> layers = new IdentityHashMap<>();
+        private final Map<SNode, Integer> nodes = new IdentityHashMap<>();
+        // everything after the string table. We only know what goes in the table once it's written.
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(1 << 16);
+
+        void write(SDocumentGraph graph, OutputStream out) throws IOException {
+            writeId(graph.getId());
+
+            writeVarint(body, graph.getLayers().size());
+            for (SLayer layer : graph.getLayers()) {
+                layers.put(layer, layers.size());
+                writeString(layer.getName());
+            }
+
+            writeVarint(body, graph.getNodes().size());
+            for (SNode node : graph.getNodes()) {
+                nodes.put(node, nodes.size());
+                if (node instanceof STextualDS) {
+                    writeVarint(body, TEXTUAL_DS);
+                    writeString(((STextualDS) node).getText());
+                } else if (node instanceof SToken) {
+                    writeVarint(body, TOKEN);
+                } else if (node instanceof SSpan) {
+                    writeVarint(body, SPAN);
+                } else {
+                    throw new UnsupportedOperationException("Can't snapshot the node " + node.getId()
+                            + ": only textual data sources, tokens and spans are supported");
+                }
+                writeId(node.getId());
+                writeId(node.getName());
+                writeAnnotations(node);
+                writeLayers(node.getLayers());
+            }
+
+            writeVarint(body, graph.getRelations().size());
+            for (SRelation<?, ?> relation : graph.getRelations()) {
+                if (relation instanceof STextualRelation) {
+                    writeVarint(body, TEXTUAL_RELATION);
+                } else if (relation instanceof SSpanningRelation) {
+                    writeVarint(body, SPANNING_RELATION);
+                } else if (relation instanceof SPointingRelation) {
+                    writeVarint(body, POINTING_RELATION);
+                } else {
+                    throw new UnsupportedOperationException("Can't snapshot the relation " + relation.getId()
+                            + ": only textual, spanning and pointing relations are supported");
+                }
+                writeId(relation.getId());
+                writeId(relation.getName());
+                writeString(relation.getType());
+                writeVarint(body, nodeIndex(relation, relation.getSource()));
+                writeVarint(body, nodeIndex(relation, relation.getTarget()));
+                if (relation instanceof STextualRelation) {
+                    writeVarint(body, ((STextualRelation) relation).getStart());
+                    writeVarint(body, ((STextualRelation) relation).getEnd());
+                }
+                writeAnnotations(relation);
+                writeLayers(relation.getLayers());
+            }
+
+            out.write(MAGIC);
+            writeVarint(out, VERSION);
+            writeVarint(out, strings.size());
+            for (String string : strings.keySet()) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                writeVarint(out, bytes.length);
+                out.write(bytes);
+            }
+            body.writeTo(out);
+            out.flush();
+        }
+
+        // a relation's end, by its position among the nodes we've written
+        private int nodeIndex(SRelation<?, ?> relation, SNode node) {
+            Integer index = nodes.get(node);
+            if (index == null) {
+                throw new UnsupportedOperationException("Can't snapshot the relation " + relation.getId()
+                        + ": its end " + (node == null ? null : node.getId()) + " isn't a node of the graph");
+            }
+            return index;
+        }
+
+        private void writeAnnotations(SAnnotationContainer container) throws IOException {
+            Set<SAnnotation> annotations = container.getAnnotations();
+            writeVarint(body, annotations.size());
+            for (SAnnotation annotation : annotations) {
+                if (annotation.getValue() != null && !(annotation.getValue() instanceof String)) {
+                    throw new UnsupportedOperationException("Can't snapshot the annotation " + annotation.getName()
+                            + ": only string values are supported");
+                }
+                writeString(annotation.getNamespace());
+                writeString(annotation.getName());
+                writeString((String) annotation.getValue());
+            }
+        }
+
+        private void writeLayers(Set<SLayer> elementLayers) throws IOException {
+            writeVarint(body, elementLayers.size());
+            for (SLayer layer : elementLayers) {
+                writeVarint(body, layers.get(layer));
+            }
+        }
+
+        // 0 for null, otherwise 1 + the string's position in the table
+        private void writeString(String string) throws IOException {
+            writeVarint(body, string == null ? 0 : intern(string) + 1);
+        }
+
+        /**
+         * An ID or name: a string, except that a number at the end is written as a number, so that
+         * sTok1, sTok2, ... all share the string sTok. Only numbers that print back the same way count
+         * (no leading zeros, at most 9 digits), anything else just stays part of the string.
+         */
+        private void writeId(String id) throws IOException {
+            if (id == null) {
+                writeVarint(body, 0);
+                return;
+            }
+            int start = id.length();
+            while (start > 0 && id.length() - start < 9 && isAsciiDigit(id.charAt(start - 1))) {
+                start--;
+            }
+            boolean numbered = start < id.length() && (id.charAt(start) != '0' || start == id.length() - 1);
+            if (!numbered) {
+                start = id.length();
+            }
+            writeVarint(body, intern(id.substring(0, start)) + 1);
+            writeVarint(body, numbered ? Integer.parseInt(id.substring(start)) + 1 : 0);
+        }
+
+        private static boolean isAsciiDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        private int intern(String string) {
+            Integer index = strings.get(string);
+            if (index == null) {
+                index = strings.size();
+                strings.put(string, index);
+            }
+            return index;
+        }
+
+        private static void writeVarint(OutputStream out, int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        }
+    }
+
+    /**
+     * Reads a whole snapshot from memory, so that it knows how many bytes are left and can check every
+     * count against them before allocating anything: a damaged snapshot is an IOException, not an
+     * OutOfMemoryError.
+     */
+    private static class Reader {
+        // the fewest bytes each thing can take up: its varints, one byte each at least
+        private static final int MIN_STRING_SIZE = 1;
+        private static final int MIN_LAYER_SIZE = 1;
+        private static final int MIN_NODE_SIZE = 5;
+        private static final int MIN_RELATION_SIZE = 8;
+        private static final int MIN_ANNOTATION_SIZE = 3;
+        private static final int MIN_LAYER_REF_SIZE = 1;
+
+        private final DataInputStream in;
+        private String[] strings;
+        private SLayer[] layers;
+        private SNode[] nodes;
+
+        Reader(byte[] snapshot) {
+            this.in = new DataInputStream(new ByteArrayInputStream(snapshot));
+        }
+
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        SDocumentGraph read() throws IOException {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a graph snapshot");
+            }
+            int version = readVarint();
+            if (version != VERSION) {
+                throw new IOException("Unsupported graph snapshot version " + version);
+            }
+            strings = new String[readCount(MIN_STRING_SIZE, "strings")];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[readCount(1, "bytes in a string")];
+                in.readFully(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            SDocumentGraph graph = SaltFactory.createSDocumentGraph();
+            String graphId = readId();
+            if (graphId != null) {
+                graph.setId(graphId);
+            }
+
+            layers = new SLayer[readCount(MIN_LAYER_SIZE, "layers")];
+            for (int i = 0; i < layers.length; i++) {
+                layers[i] = SaltFactory.createSLayer();
+                layers[i].setName(readString());
+                graph.addLayer(layers[i]);
+            }
+
+            nodes = new SNode[readCount(MIN_NODE_SIZE, "nodes")];
+            for (int i = 0; i < nodes.length; i++) {
+                int kind = readVarint();
+                SNode node;
+                switch (kind) {
+                    case TEXTUAL_DS:
+                        STextualDS text = SaltFactory.createSTextualDS();
+                        text.setText(readString());
+                        node = text;
+                        break;
+                    case TOKEN:
+                        node = SaltFactory.createSToken();
+                        break;
+                    case SPAN:
+                        node = SaltFactory.createSSpan();
+                        break;
+                    default:
+                        throw new IOException("Unknown node kind " + kind + " in graph snapshot");
+                }
+                node.setId(readId());
+                node.setName(readId());
+                readAnnotations(node);
+                graph.addNode(node);
+                for (SLayer layer : readLayers()) {
+                    layer.addNode(node);
+                }
+                nodes[i] = node;
+            }
+
+            int relationCount = readCount(MIN_RELATION_SIZE, "relations");
+            for (int i = 0; i < relationCount; i++) {
+                int kind = readVarint();
+                SRelation relation;
+                switch (kind) {
+                    case TEXTUAL_RELATION:
+                        relation = SaltFactory.createSTextualRelation();
+                        break;
+                    case SPANNING_RELATION:
+                        relation = SaltFactory.createSSpanningRelation();
+                        break;
+                    case POINTING_RELATION:
+                        relation = SaltFactory.createSPointingRelation();
+                        break;
+                    default:
+                        throw new IOException("Unknown relation kind " + kind + " in graph snapshot");
+                }
+                relation.setId(readId());
+                relation.setName(readId());
+                String type = readString();
+                if (type != null) {
+                    relation.setType(type);
+                }
+                relation.setSource(lookup(nodes, readVarint(), "node"));
+                relation.setTarget(lookup(nodes, readVarint(), "node"));
+                if (kind == TEXTUAL_RELATION) {
+                    ((STextualRelation) relation).setStart(readVarint());
+                    ((STextualRelation) relation).setEnd(readVarint());
+                }
+                readAnnotations(relation);
+                graph.addRelation(relation);
+                for (SLayer layer : readLayers()) {
+                    layer.addRelation(relation);
+                }
+            }
+            return graph;
+        }
+
+        private void readAnnotations(SAnnotationContainer container) throws IOException {
+            int count = readCount(MIN_ANNOTATION_SIZE, "annotations");
+            for (int i = 0; i < count; i++) {
+                SAnnotation annotation = SaltFactory.createSAnnotation();
+                String namespace = readString();
+                if (namespace != null) {
+                    annotation.setNamespace(namespace);
+                }
+                annotation.setName(readString());
+                annotation.setValue(readString());
+                container.addAnnotation(annotation);
+            }
+        }
+
+        private List<SLayer> readLayers() throws IOException {
+            int count = readCount(MIN_LAYER_REF_SIZE, "layers");
+            if (count == 0) {
+                return Collections.emptyList();
+            }
+            List<SLayer> elementLayers = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                elementLayers.add(lookup(layers, readVarint(), "layer"));
+            }
+            return elementLayers;
+        }
+
+        private String readString() throws IOException {
+            int index = readVarint();
+            return index == 0 ? null : lookup(strings, index - 1, "string");
+        }
+
+        /**
+         * @return the next varint, if that many things of at least minSize bytes each fit in what's left
+         */
+        private int readCount(int minSize, String what) throws IOException {
+            int count = readVarint();
+            int left = in.available();
+            if (count < 0 || count > left / minSize) {
+                throw new IOException("Graph snapshot claims " + Integer.toUnsignedString(count) + " " + what
+                        + " with " + left + " bytes left");
+            }
+            return count;
+        }
+
+        private static <T> T lookup(T[] table, int index, String what) throws IOException {
+            if (index < 0 || index >= table.length) {
+                throw new IOException("Graph snapshot refers to " + what + " " + Integer.toUnsignedString(index)
+                        + " of " + table.length);
+            }
+            return table[index];
+        }
+
+        private String readId() throws IOException {
+            String prefix = readString();
+            if (prefix == null) {
+                return null;
+            }
+            int number = readVarint();
+            return number == 0 ? prefix : prefix + (number - 1);
+        }
+
+        private int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = in.read();
+                if (b < 0) {
+                    throw new EOFException("Graph snapshot is cut short");
+                }
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint in graph snapshot");
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.eclipsesource.json.JsonValue;
+import edu.georgetown.uis.corpling.pepper.streusle.SentenceStage.Node;
+
+/**
+ * A sentence's strong or weak MWEs: which tokens belong to which MWE, and then the span made for each.
+ * MWE IDs are small and dense (1, 2, 3... within a sentence), so the tokens are bucketed in int arrays
+ * indexed by the ID itself rather than in a map of boxed lists, and the spans are made in ascending ID
+ * order so that the graph always comes out the same. A sentence can't have more MWEs than tokens, so an
+ * ID past the token count is rejected rather than allowed to size the arrays.
+ */
+class MweGroups {
+    private final String sentenceId;
+    private final boolean strong;
+    private final int tokenCount;
+    // by MWE ID, the 1-indexed positions in sTokens of the MWE's tokens. Only the first sizes[id] are used.
+    private int[][] positions = new int[8][];
+    private int[] sizes = new int[8];
+    private Node[] spans;
+
+    /**
+     * @param strong true for SMWEs, false for WMWEs
+     * @param tokenCount how many tokens the sentence has, the highest MWE ID it can have
+     */
+    MweGroups(String sentenceId, boolean strong, int tokenCount) {
+        this.sentenceId = sentenceId;
+        this.strong = strong;
+        this.tokenCount = tokenCount;
+    }
+
+    /**
+     * Remember that token i belongs to the MWE in mweVal (the token's "smwe" or "wmwe"), if any.
+     * Both callers go through a sentence's tokens in order, so each MWE's positions come out increasing
+     * without us having to check.
+     */
+    void addToken(int i, JsonValue mweVal) {
+        if (mweVal == null || mweVal.isNull() || !mweVal.isArray()) {
+            return;
+        }
+
+        // the second part of this array tells us the order of this word in the MWE, but this is useless
+        // for us, so ignore it
+        int mweId = mweVal.asArray().get(0).asInt();
+        if (mweId < 0) {
+            throw new RuntimeException(name() + " " + mweId + " in sentence " + sentenceId + " has a negative ID.");
+        }
+        if (mweId > tokenCount) {
+            throw new RuntimeException(name() + " " + mweId + " in sentence " + sentenceId + " has an ID past the "
+                    + "sentence's " + tokenCount + " tokens.");
+        }
+        if (mweId >= sizes.length) {
+            int length = Math.max(sizes.length * 2, mweId + 1);
+            positions = Arrays.copyOf(positions, length);
+            sizes = Arrays.copyOf(sizes, length);
+        }
+
+        int[] tokens = positions[mweId];
+        int size = sizes[mweId];
+        if (tokens == null) {
+            tokens = positions[mweId] = new int[4];
+        } else if (size == tokens.length) {
+            tokens = positions[mweId] = Arrays.copyOf(tokens, size * 2);
+        }
+        tokens[size] = i + 1;
+        sizes[mweId] = size + 1;
+    }
+
+    /**
+     * Make a span for every MWE, in ascending ID order, once every token has been through addToken.
+     * @param sTokens SALT tokens, ellipsis tokens included
+     */
+    void createSpans(SentenceStage stage, List<Node> sTokens) {
+        spans = new Node[sizes.length];
+        String prefix = sentenceId + (strong ? "_SMWE_" : "_WMWE_");
+        for (int mweId = 0; mweId < sizes.length; mweId++) {
+            int size = sizes[mweId];
+            if (size == 0) {
+                continue;
+            }
+            List<Node> mweTokens = new ArrayList<>(size);
+            for (int k = 0; k < size; k++) {
+                // subtract 1 because positions are 1-indexed
+                mweTokens.add(sTokens.get(positions[mweId][k] - 1));
+            }
+
+            Node mweSpan = stage.createSpan(mweTokens);
+            stage.setName(mweSpan, prefix + mweId);
+            spans[mweId] = mweSpan;
+        }
+    }
+
+    /**
+     * @return the span made for the MWE with this ID by createSpans, or null if there's no such MWE
+     */
+    Node getSpan(int mweId) {
+        return mweId >= 0 && mweId < spans.length ? spans[mweId] : null;
+    }
+
+    private String name() {
+        return strong ? "SMWE" : "WMWE";
+    }
+}
@@ -0,0 +1,66 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of which nodes can reach which other nodes through the edges added to it so far, so that
+ * we can tell whether a new edge would close a cycle without walking the graph. We keep one of these
+ * per sentence for the "ude" edges: sentences are small, so a bit set of reachable nodes per node is
+ * cheap, and asking about a new edge is a single bit lookup.
+ * @param <N> the node type
+ */
+class ReachabilityIndex<N> {
+    private final Map<N, Integer> nodeIndexes = new IdentityHashMap<>();
+    // reachable.get(i) holds the indexes of every node that node i has a path to
+    private final List<BitSet> reachable = new ArrayList<>();
+
+    private int indexOf(N node) {
+        Integer index = nodeIndexes.get(node);
+        if (index == null) {
+            index = reachable.size();
+            nodeIndexes.put(node, index);
+            reachable.add(new BitSet());
+        }
+        return index;
+    }
+
+    /**
+     * @return true iff adding an edge from source to target would close a cycle, i.e. if source
+     *         can already be reached from target (or they're the same node)
+     */
+    boolean wouldCloseCycle(N source, N target) {
+        if (source == null || target == null) {
+            return false;
+        }
+        if (source == target) {
+            return true;
+        }
+        Integer sourceIndex = nodeIndexes.get(source);
+        Integer targetIndex = nodeIndexes.get(target);
+        return sourceIndex != null && targetIndex != null && reachable.get(targetIndex).get(sourceIndex);
+    }
+
+    /**
+     * Record an edge from source to target: everything that could reach source (and source itself)
+     * can now also reach target and everything target can reach.
+     */
+    void addEdge(N source, N target) {
+        if (source == null || target == null) {
+            return;
+        }
+        int sourceIndex = indexOf(source);
+        int targetIndex = indexOf(target);
+        BitSet gained = (BitSet) reachable.get(targetIndex).clone();
+        gained.set(targetIndex);
+        for (int i = 0; i < reachable.size(); i++) {
+            BitSet fromI = reachable.get(i);
+            if (i == sourceIndex || fromI.get(sourceIndex)) {
+                fromI.or(gained);
+            }
+        }
+    }
+}
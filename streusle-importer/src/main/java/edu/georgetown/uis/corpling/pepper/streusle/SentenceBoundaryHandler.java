@@ -0,0 +1,127 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import com.eclipsesource.json.JsonByteParser;
+import com.eclipsesource.json.JsonHandler;
+
+/**
+ * A JsonHandler for STREUSLE JSON (a top-level array of sentences) that doesn't build anything: all it
+ * does is report where each sentence begins and ends in the input, along with its sent_id. Meant to be
+ * used with a {@link JsonByteParser}, so the offsets are byte offsets and the sentence's JSON can be
+ * copied or re-parsed straight out of the input.
+ */
+class SentenceBoundaryHandler extends JsonHandler<Object, Object> {
+
+    /**
+     * Receives each sentence, in order.
+     */
+    interface BoundaryListener {
+        /**
+         * @param sentenceId the sentence's sent_id
+         * @param start offset of the sentence's opening brace
+         * @param end offset just past its closing brace
+         */
+        void sentence(String sentenceId, int start, int end);
+    }
+
+    private final BoundaryListener listener;
+    // 0 outside the document, 1 inside the top-level array, 2 inside a sentence, and so on
+    private int depth = 0;
+    private int sentenceStart;
+    private String sentenceId;
+    // whether the value being read is the current sentence's sent_id
+    private boolean readingSentenceId;
+
+    SentenceBoundaryHandler(BoundaryListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public Object startArray() {
+        depth++;
+        return null;
+    }
+
+    @Override
+    public void endArray(Object array) {
+        depth--;
+    }
+
+    private void checkNotTopLevel() {
+        if (depth == 0) {
+            throw error("Expected a JSON array of sentences");
+        }
+    }
+
+    @Override
+    public void startNull() {
+        checkNotTopLevel();
+    }
+
+    @Override
+    public void startBoolean() {
+        checkNotTopLevel();
+    }
+
+    @Override
+    public void startString() {
+        checkNotTopLevel();
+    }
+
+    @Override
+    public void startNumber() {
+        checkNotTopLevel();
+    }
+
+    @Override
+    public Object startObject() {
+        checkNotTopLevel();
+        depth++;
+        return null;
+    }
+
+    @Override
+    public void endObject(Object object) {
+        depth--;
+    }
+
+    @Override
+    public void startArrayValue(Object array) {
+        if (depth == 1) {
+            sentenceStart = getLocation().offset;
+            sentenceId = null;
+        }
+    }
+
+    @Override
+    public void endArrayValue(Object array) {
+        if (depth != 1) {
+            return;
+        }
+        if (sentenceId == null) {
+            throw error("Expected a sentence object with a sent_id at offset " + sentenceStart);
+        }
+        listener.sentence(sentenceId, sentenceStart, getLocation().offset);
+    }
+
+    @Override
+    public void endObjectName(Object object, String name) {
+        readingSentenceId = depth == 2 && name.equals("sent_id");
+    }
+
+    @Override
+    public void endString(String string) {
+        if (readingSentenceId) {
+            sentenceId = string;
+        }
+    }
+
+    @Override
+    public void endInt(int value) {
+        // numbers don't matter here, and the default would turn each one into a String
+    }
+
+    @Override
+    public void endObjectValue(Object object, String name) {
+        readingSentenceId = false;
+    }
+}
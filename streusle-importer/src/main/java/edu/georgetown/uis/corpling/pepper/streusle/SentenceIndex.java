@@ -0,0 +1,265 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.eclipsesource.json.JsonByteParser;
+import com.eclipsesource.json.JsonObject;
+
+/**
+ * Where every sentence is in a STREUSLE JSON file (whole-corpus or document-level), so that a single
+ * sentence or document can be parsed without parsing everything before it. For each top-level sentence
+ * object we keep its sent_id, byte offset and length.
+ * The index is saved next to the JSON as a small binary sidecar, e.g. streusle.gov.json.sidx, and
+ * {@link #open} only rebuilds it when the JSON has changed since. It can also be used from the command line:
+ * <pre>
+ * java -cp streusle-1.0.0-SNAPSHOT.jar edu.georgetown.uis.corpling.pepper.streusle.SentenceIndex \
+ *     streusle.gov.json reviews-086839-0003
+ * </pre>
+ */
+public class SentenceIndex {
+    public static final String SIDECAR_EXTENSION = ".sidx";
+
+    private static final int MAGIC = 0x53494458; // "SIDX"
+    private static final int VERSION = 1;
+    // magic, version, JSON size and modification time, entry count
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4;
+    // an empty sent_id (just writeUTF's length), offset, length
+    private static final int MIN_ENTRY_SIZE = 2 + 8 + 4;
+
+    private final Path json;
+    private final String[] sentenceIds;
+    private final long[] offsets;
+    private final int[] lengths;
+    private final Map<String, Integer> positions;
+
+    private SentenceIndex(Path json, String[] sentenceIds, long[] offsets, int[] lengths) {
+        this.json = json;
+        this.sentenceIds = sentenceIds;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.positions = new HashMap<>(sentenceIds.length * 2);
+        for (int i = 0; i < sentenceIds.length; i++) {
+            positions.put(sentenceIds[i], i);
+        }
+    }
+
+    /**
+     * Load the index for json from its sidecar, or build it (and write the sidecar) if there isn't one
+     * or the JSON has changed since it was written.
+     */
+    public static SentenceIndex open(Path json) throws IOException {
+        Path sidecar = sidecarFor(json);
+        if (Files.isRegularFile(sidecar)) {
+            SentenceIndex index = load(json, sidecar);
+            if (index != null) {
+                return index;
+            }
+        }
+        SentenceIndex index = build(json);
+        index.save(sidecar);
+        return index;
+    }
+
+    /**
+     * @return where {@link #open} keeps json's index
+     */
+    public static Path sidecarFor(Path json) {
+        return json.resolveSibling(json.getFileName() + SIDECAR_EXTENSION);
+    }
+
+    /**
+     * Index json in one streaming pass. Nothing is written to disk.
+     */
+    public static SentenceIndex build(Path json) throws IOException {
+        ByteBuffer input;
+        try (FileChannel channel = FileChannel.open(json, StandardOpenOption.READ)) {
+            input = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        List<String> sentenceIds = new ArrayList<>();
+        long[][] offsets = {new long[1024]};
+        int[][] lengths = {new int[1024]};
+        new JsonByteParser(new SentenceBoundaryHandler((sentenceId, start, end) -> {
+            int i = sentenceIds.size();
+            if (i == offsets[0].length) {
+                offsets[0] = Arrays.copyOf(offsets[0], i * 2);
+                lengths[0] = Arrays.copyOf(lengths[0], i * 2);
+            }
+            sentenceIds.add(sentenceId);
+            offsets[0][i] = start;
+            lengths[0][i] = end - start;
+        })).parse(input);
+        int n = sentenceIds.size();
+        return new SentenceIndex(json, sentenceIds.toArray(new String[n]),
+                Arrays.copyOf(offsets[0], n), Arrays.copyOf(lengths[0], n));
+    }
+
+    /**
+     * Write the index to sidecar. Along with the entries, we record the JSON's size and modification time
+     * so that a stale sidecar can be told apart. Like {@link DocumentCache#save}, we write to a temporary
+     * file first and then move it into place, so that a crashed or concurrent save can't leave a
+     * half-written sidecar behind.
+     */
+    public void save(Path sidecar) throws IOException {
+        Path directory = sidecar.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, sidecar.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(Files.size(json));
+                out.writeLong(Files.getLastModifiedTime(json).toMillis());
+                out.writeInt(sentenceIds.length);
+                for (int i = 0; i < sentenceIds.length; i++) {
+                    out.writeUTF(sentenceIds[i]);
+                    out.writeLong(offsets[i]);
+                    out.writeInt(lengths[i]);
+                }
+            }
+            Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @return the index saved in sidecar, or null if it isn't an index or is out of date for json
+     */
+    private static SentenceIndex load(Path json, Path sidecar) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(sidecar)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || in.readLong() != Files.size(json)
+                    || in.readLong() != Files.getLastModifiedTime(json).toMillis()) {
+                return null;
+            }
+            // a damaged count shouldn't make us allocate more entries than the sidecar can hold
+            int n = in.readInt();
+            if (n < 0 || n > (Files.size(sidecar) - HEADER_SIZE) / MIN_ENTRY_SIZE) {
+                return null;
+            }
+            long jsonSize = Files.size(json);
+            String[] sentenceIds = new String[n];
+            long[] offsets = new long[n];
+            int[] lengths = new int[n];
+            for (int i = 0; i < n; i++) {
+                sentenceIds[i] = in.readUTF();
+                offsets[i] = in.readLong();
+                lengths[i] = in.readInt();
+                if (offsets[i] < 0 || lengths[i] < 0 || offsets[i] + lengths[i] > jsonSize) {
+                    return null;
+                }
+            }
+            return new SentenceIndex(json, sentenceIds, offsets, lengths);
+        } catch (EOFException | UTFDataFormatException e) {
+            // cut short or otherwise damaged, we'll just build it again
+            return null;
+        }
+    }
+
+    public int size() {
+        return sentenceIds.length;
+    }
+
+    public String getSentenceId(int i) {
+        return sentenceIds[i];
+    }
+
+    public long getOffset(int i) {
+        return offsets[i];
+    }
+
+    public int getLength(int i) {
+        return lengths[i];
+    }
+
+    /**
+     * @return the sentence's position in the index (and the JSON), or -1 if there's no such sentence
+     */
+    public int indexOf(String sentenceId) {
+        Integer i = positions.get(sentenceId);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * Read and parse only the i-th sentence.
+     */
+    public JsonObject readSentence(int i) throws IOException {
+        try (FileChannel channel = FileChannel.open(json, StandardOpenOption.READ)) {
+            return readSentence(channel, i);
+        }
+    }
+
+    /**
+     * Read and parse only the sentence with this sent_id.
+     * @throws IllegalArgumentException if there's no such sentence
+     */
+    public JsonObject readSentence(String sentenceId) throws IOException {
+        int i = indexOf(sentenceId);
+        if (i < 0) {
+            throw new IllegalArgumentException("No sentence `" + sentenceId + "` in " + json);
+        }
+        return readSentence(i);
+    }
+
+    /**
+     * Read and parse only the sentences of one document (see {@link StreusleCorpusSplitter#sent2doc}),
+     * in the order they're in in the JSON.
+     */
+    public List<JsonObject> readDocument(String docId) throws IOException {
+        List<JsonObject> sentences = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(json, StandardOpenOption.READ)) {
+            for (int i = 0; i < sentenceIds.length; i++) {
+                if (StreusleCorpusSplitter.sent2doc(sentenceIds[i]).equals(docId)) {
+                    sentences.add(readSentence(channel, i));
+                }
+            }
+        }
+        return sentences;
+    }
+
+    private JsonObject readSentence(FileChannel channel, int i) throws IOException {
+        ByteBuffer sentence = ByteBuffer.allocate(lengths[i]);
+        long position = offsets[i];
+        while (sentence.hasRemaining()) {
+            int read = channel.read(sentence, position);
+            if (read < 0) {
+                throw new EOFException("Sentence `" + sentenceIds[i] + "` is past the end of " + json
+                        + ", is the index out of date?");
+            }
+            position += read;
+        }
+        sentence.flip();
+        return StreusleMapper.parse(sentence).asObject();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: SentenceIndex <json> [sent_id ...]");
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        SentenceIndex index = open(Paths.get(args[0]));
+        System.err.println("Opened the index of " + index.size() + " sentences in "
+                + (System.nanoTime() - start) / 1000000 + "ms");
+        for (int i = 1; i < args.length; i++) {
+            System.out.println(index.readSentence(args[i]));
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import java.util.*;
+
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.*;
+import org.corpus_tools.salt.core.SAnnotation;
+import org.corpus_tools.salt.core.SAnnotationContainer;
+import org.corpus_tools.salt.core.SLayer;
+import org.corpus_tools.salt.core.SNode;
+
+/**
+ * Everything StreusleMapper wants to do to the SDocumentGraph for a single sentence, written down
+ * instead of done. Staging a sentence doesn't touch the graph (or any other Salt object), so sentences
+ * can be staged on any thread. {@link #merge} then replays the recorded operations against the graph
+ * in the order they were recorded, which makes the result exactly the same as if we had built the
+ * graph directly: same calls, same order, and therefore the same node and relation IDs.
+ * <p>
+ * A stage made for a graph does each operation right away instead, for the sequential path, which has
+ * no use for the recording: same calls, same order, just without writing them down first.
+ */
+class SentenceStage {
+
+    /**
+     * Stands in for an SToken or SSpan that will be created when the stage is merged.
+     */
+    static class Node {
+        private SNode node;
+    }
+
+    /**
+     * Stands in for an SPointingRelation. Mirrors the handful of SPointingRelation setters we use.
+     */
+    static class Relation {
+        private final String type;
+        private String id;
+        private final Node source;
+        private final Node target;
+        private final List<String> annotations = new ArrayList<>();
+
+        private Relation(String type, Node source, Node target) {
+            this.type = type;
+            this.source = source;
+            this.target = target;
+        }
+
+        void setId(String id) {
+            this.id = id;
+        }
+
+        void annotate(String key, String value) {
+            annotations.add(key);
+            annotations.add(value);
+        }
+    }
+
+    private interface Op {
+        void apply(SDocumentGraph doc, STextualDS primaryText);
+    }
+
+    private final List<Op> ops = new ArrayList<>();
+    private final SDocumentGraph doc;
+    private final STextualDS primaryText;
+
+    /**
+     * A stage that records everything for {@link #merge}.
+     */
+    SentenceStage() {
+        this(null, null);
+    }
+
+    /**
+     * A stage that does everything to the graph right away, so there's nothing left for {@link #merge}.
+     * Only for the thread that owns the graph.
+     */
+    SentenceStage(SDocumentGraph doc, STextualDS primaryText) {
+        this.doc = doc;
+        this.primaryText = primaryText;
+    }
+
+    private void add(Op op) {
+        if (doc != null) {
+            op.apply(doc, primaryText);
+        } else {
+            ops.add(op);
+        }
+    }
+
+    Node createToken(int start, int end) {
+        Node token = new Node();
+        add((doc, primaryText) -> token.node = doc.createToken(primaryText, start, end));
+        return token;
+    }
+
+    Node createSpan(Node token) {
+        Node span = new Node();
+        add((doc, primaryText) -> span.node = doc.createSpan((SToken) token.node));
+        return span;
+    }
+
+    Node createSpan(List<Node> tokens) {
+        Node span = new Node();
+        List<Node> spanTokens = new ArrayList<>(tokens);
+        add((doc, primaryText) -> {
+            List<SToken> sTokens = new ArrayList<>(spanTokens.size());
+            for (Node token : spanTokens) {
+                sTokens.add((SToken) token.node);
+            }
+            span.node = doc.createSpan(sTokens);
+        });
+        return span;
+    }
+
+    void setName(Node node, String name) {
+        add((doc, primaryText) -> node.node.setName(name));
+    }
+
+    void annotate(Node node, String key, String value) {
+        add((doc, primaryText) -> annotateNode(node.node, key, value));
+    }
+
+    Relation createPointingRelation(String type, Node source, Node target) {
+        return new Relation(type, source, target);
+    }
+
+    /**
+     * Add the relation to the document graph.
+     */
+    void addRelation(Relation rel) {
+        add((doc, primaryText) -> doc.addRelation(toSalt(rel)));
+    }
+
+    /**
+     * Add the relation to the document graph and to a layer. Adding it to the graph right away, rather
+     * than with the layer at the end, gives it its ID and place in the graph in staging order: Salt
+     * keeps a layer's relations in a set, so adding the layer would add them in no particular order.
+     */
+    void addRelation(SLayer layer, Relation rel) {
+        add((doc, primaryText) -> {
+            SPointingRelation sRel = toSalt(rel);
+            doc.addRelation(sRel);
+            layer.addRelation(sRel);
+        });
+    }
+
+    private static SPointingRelation toSalt(Relation rel) {
+        SPointingRelation sRel = SaltFactory.createSPointingRelation();
+        sRel.setType(rel.type);
+        if (rel.id != null) {
+            sRel.setId(rel.id);
+        }
+        sRel.setSource(toSalt(rel.source));
+        sRel.setTarget(toSalt(rel.target));
+        for (int i = 0; i < rel.annotations.size(); i += 2) {
+            annotateNode(sRel, rel.annotations.get(i), rel.annotations.get(i + 1));
+        }
+        return sRel;
+    }
+
+    private static SStructuredNode toSalt(Node node) {
+        return node == null ? null : (SStructuredNode) node.node;
+    }
+
+    private static void annotateNode(SAnnotationContainer node, String key, String value) {
+        // every SAnnotation belongs to one container, so we can't share those, but we can share the strings
+        SAnnotation ann = SaltFactory.createSAnnotation();
+        ann.setName(StringPool.intern(key));
+        ann.setValue(StringPool.intern(value));
+        node.addAnnotation(ann);
+    }
+
+    /**
+     * Move everything staged in other to the end of this stage, as if it had been staged here.
+     */
+    void append(SentenceStage other) {
+        for (Op op : other.ops) {
+            add(op);
+        }
+        other.ops.clear();
+    }
+
+    /**
+     * Replay everything that was staged against the document graph. Must be called on one thread at
+     * a time per document, in sentence order.
+     */
+    void merge(SDocumentGraph doc, STextualDS primaryText) {
+        for (Op op : ops) {
+            op.apply(doc, primaryText);
+        }
+        ops.clear();
+    }
+}
@@ -0,0 +1,136 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.eclipsesource.json.JsonByteParser;
+
+/**
+ * Splits a whole-corpus STREUSLE JSON file (what conllulex2json.py and govobj.py write) into one file
+ * per document, which is what StreusleMapper expects. Sentences belong to the document named by their
+ * sent_id minus its last "-" part, e.g. reviews-086839-0003 belongs to reviews-086839. A document's
+ * sentences don't have to be in a row: when a document comes back after another one, its sentences are
+ * added to the end of its file, so each file has all of its document's sentences in corpus order, just
+ * like the document's virtual document (see {@link VirtualDocuments}). This is what scripts/split_streusle_json.py used to do, but
+ * we read the corpus in a single streaming pass and copy each sentence's bytes as they are, without
+ * building a JSON tree for the corpus (or even for a sentence).
+ * Used by {@link StreusleImporter} when {@value StreusleImporterProperties#PROP_SPLIT_CORPUS} is set,
+ * and can be run on its own:
+ * <pre>
+ * java -cp streusle-1.0.0-SNAPSHOT.jar edu.georgetown.uis.corpling.pepper.streusle.StreusleCorpusSplitter \
+ *     streusle.gov.json pepper/streusle/streusle
+ * </pre>
+ */
+public class StreusleCorpusSplitter {
+    private static final ByteBuffer OPEN = ByteBuffer.wrap("[".getBytes(StandardCharsets.US_ASCII));
+    private static final ByteBuffer SEPARATOR = ByteBuffer.wrap(", ".getBytes(StandardCharsets.US_ASCII));
+    private static final ByteBuffer CLOSE = ByteBuffer.wrap("]".getBytes(StandardCharsets.US_ASCII));
+
+    private final Path outputDir;
+    private ByteBuffer input;
+    private String currentDocId;
+    private FileChannel currentDoc;
+    // every document that has a file yet
+    private final Set<String> docIds = new HashSet<>();
+
+    private StreusleCorpusSplitter(Path outputDir) {
+        this.outputDir = outputDir;
+    }
+
+    /**
+     * The document a sentence belongs to: its sent_id without the last "-" part.
+     */
+    static String sent2doc(String sentenceId) {
+        int lastDash = sentenceId.lastIndexOf('-');
+        if (lastDash <= 0) {
+            throw new UnsupportedOperationException("Can't tell which document sentence `" + sentenceId
+                    + "` belongs to: sent_id should look like <document>-<sentence>");
+        }
+        return sentenceId.substring(0, lastDash);
+    }
+
+    /**
+     * Split the corpus into outputDir, one &lt;document ID&gt;.json per document. outputDir is created if
+     * it doesn't exist, and files already in it are overwritten.
+     * @return how many documents were written
+     */
+    public static int split(Path corpus, Path outputDir) throws IOException {
+        Files.createDirectories(outputDir);
+        StreusleCorpusSplitter splitter = new StreusleCorpusSplitter(outputDir);
+        try (FileChannel channel = FileChannel.open(corpus, StandardOpenOption.READ)) {
+            splitter.input = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            new JsonByteParser(new SentenceBoundaryHandler(splitter::sentence)).parse(splitter.input);
+            splitter.closeDocument();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            if (splitter.currentDoc != null) {
+                splitter.currentDoc.close();
+            }
+        }
+        return splitter.docIds.size();
+    }
+
+    private void sentence(String sentenceId, int start, int end) {
+        try {
+            String docId = sent2doc(sentenceId);
+            if (docId.equals(currentDocId)) {
+                write(SEPARATOR.duplicate());
+            } else {
+                closeDocument();
+                currentDocId = docId;
+                Path file = outputDir.resolve(docId + ".json");
+                if (docIds.add(docId)) {
+                    currentDoc = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                            StandardOpenOption.TRUNCATE_EXISTING);
+                    write(OPEN.duplicate());
+                } else {
+                    // the document is back after another one: write over its closing bracket
+                    currentDoc = FileChannel.open(file, StandardOpenOption.WRITE);
+                    currentDoc.position(currentDoc.size() - CLOSE.capacity());
+                    write(SEPARATOR.duplicate());
+                }
+            }
+            ByteBuffer sentence = input.duplicate();
+            sentence.limit(end).position(start);
+            write(sentence);
+        } catch (IOException e) {
+            // the parser's handler can't throw checked exceptions, so smuggle it out to split()
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void closeDocument() throws IOException {
+        if (currentDoc != null) {
+            write(CLOSE.duplicate());
+            currentDoc.close();
+            currentDoc = null;
+        }
+    }
+
+    private void write(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            currentDoc.write(bytes);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: StreusleCorpusSplitter <corpus json> <output dir>");
+            System.exit(1);
+        }
+        int docCount = split(Paths.get(args[0]), Paths.get(args[1]));
+        System.out.println("Wrote " + docCount + " docs to " + args[1]);
+    }
+}
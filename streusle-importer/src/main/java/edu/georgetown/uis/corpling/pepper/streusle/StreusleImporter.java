@@ -1,11 +1,23 @@
 package edu.georgetown.uis.corpling.pepper.streusle;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
 import org.corpus_tools.pepper.impl.PepperImporterImpl;
 import org.corpus_tools.pepper.modules.PepperImporter;
 import org.corpus_tools.pepper.modules.PepperMapper;
+import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
+import org.corpus_tools.salt.common.SCorpus;
+import org.corpus_tools.salt.common.SCorpusGraph;
+import org.corpus_tools.salt.common.SDocument;
 import org.corpus_tools.salt.graph.Identifier;
 import org.eclipse.emf.common.util.URI;
 import org.osgi.service.component.annotations.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * @author Luke Gessler
@@ -15,9 +27,13 @@ import org.osgi.service.component.annotations.Component;
  */
 @Component(name = "StreusleImporterComponent", factory = "PepperImporterComponentFactory")
 public class StreusleImporter extends PepperImporterImpl implements PepperImporter{
+	private static final Logger logger = LoggerFactory.getLogger(StreusleImporter.class);
 	public static final String NAME = "StreusleImporter";
 	public static final String FORMAT_NAME = "json";
 	public static final String FORMAT_VERSION = "1.0";
+	// see getSentencePool
+	private ForkJoinPool sentencePool;
+
 	public StreusleImporter() {
 		super();
 		setName(NAME);
@@ -27,11 +43,109 @@ public class StreusleImporter extends PepperImporterImpl implements PepperImport
 		this.addSupportedFormat(FORMAT_NAME, FORMAT_VERSION,
 				URI.createURI("https://github.com/nert-nlp/streusle/blob/master/CONLLULEX.md"));
 		getDocumentEndings().add("json");
+		setProperties(new StreusleImporterProperties());
+	}
+
+	/**
+	 * If the importer was pointed at a single file holding the whole corpus, either import its documents
+	 * straight out of it ({@value StreusleImporterProperties#PROP_VIRTUAL_DOCUMENTS}) or, if
+	 * {@value StreusleImporterProperties#PROP_SPLIT_CORPUS} is set, split it into documents first and
+	 * import those instead.
+	 */
+	@Override
+	public void importCorpusStructure(SCorpusGraph corpusGraph) throws PepperModuleException {
+		StreusleImporterProperties properties = (StreusleImporterProperties) getProperties();
+		URI corpusPath = getCorpusDesc().getCorpusPath();
+		File corpusFile = corpusPath != null && corpusPath.isFile() ? new File(corpusPath.toFileString()) : null;
+		if (corpusFile != null && corpusFile.isFile()) {
+			if (properties.isVirtualDocuments()) {
+				importVirtualDocuments(corpusGraph, corpusFile);
+				return;
+			}
+			if (properties.isSplitCorpus()) {
+				File outputDir;
+				if (properties.getSplitDirectory() != null) {
+					outputDir = new File(properties.getSplitDirectory());
+				} else {
+					String name = corpusName(corpusFile);
+					outputDir = new File(corpusFile.getAbsoluteFile().getParentFile(),
+							name.equals(corpusFile.getName()) ? name + ".split" : name);
+				}
+				try {
+					int docCount = StreusleCorpusSplitter.split(corpusFile.toPath(), outputDir.toPath());
+					logger.info("Split {} into {} documents in {}.", corpusFile, docCount, outputDir);
+				} catch (IOException e) {
+					throw new PepperModuleException("Could not split the corpus " + corpusFile + " into documents", e);
+				}
+				getCorpusDesc().setCorpusPath(URI.createFileURI(outputDir.getAbsolutePath()));
+			}
+		}
+		super.importCorpusStructure(corpusGraph);
+	}
+
+	/**
+	 * One corpus named after the file, with one document per document ID in it. Each document's resource
+	 * is the corpus file's URI with the byte ranges of its sentences as the fragment, which
+	 * {@link StreusleMapper} reads instead of the whole file.
+	 */
+	private void importVirtualDocuments(SCorpusGraph corpusGraph, File corpusFile) {
+		Map<String, List<VirtualDocuments.Range>> documents;
+		try {
+			documents = VirtualDocuments.index(corpusFile.toPath());
+		} catch (IOException e) {
+			throw new PepperModuleException("Could not read the corpus " + corpusFile, e);
+		}
+		setCorpusGraph(corpusGraph);
+		URI corpusUri = URI.createFileURI(corpusFile.getAbsolutePath());
+		SCorpus corpus = corpusGraph.createCorpus(null, corpusName(corpusFile));
+		for (Map.Entry<String, List<VirtualDocuments.Range>> document : documents.entrySet()) {
+			SDocument sDocument = corpusGraph.createDocument(corpus, document.getKey());
+			getIdentifier2ResourceTable().put(sDocument.getIdentifier(),
+					corpusUri.appendFragment(VirtualDocuments.toFragment(document.getValue())));
+		}
+		logger.info("Found {} documents in {}.", documents.size(), corpusFile);
+	}
+
+	// the corpus file's name minus .json, e.g. streusle.gov for streusle.gov.json
+	private static String corpusName(File corpusFile) {
+		String name = corpusFile.getName();
+		return name.endsWith(".json") ? name.substring(0, name.length() - ".json".length()) : name;
 	}
 
 	public PepperMapper createPepperMapper(Identifier Identifier) {
 		StreusleMapper mapper = new StreusleMapper();
 		mapper.setResourceURI(getIdentifier2ResourceTable().get(Identifier));
+		mapper.setSentencePool(getSentencePool());
 		return (mapper);
 	}
+
+	/**
+	 * The pool all documents stage their sentences on if {@value StreusleImporterProperties#PROP_PARALLELISM}
+	 * is above 1, or null. Pepper may map several documents at once, so a pool per document would multiply
+	 * the threads; with one pool, there are never more than that many sentence threads in total.
+	 */
+	private synchronized ForkJoinPool getSentencePool() {
+		int parallelism = ((StreusleImporterProperties) getProperties()).getParallelism();
+		if (parallelism <= 1) {
+			return null;
+		}
+		if (sentencePool == null) {
+			sentencePool = new ForkJoinPool(parallelism);
+		}
+		return sentencePool;
+	}
+
+	/**
+	 * Called by Pepper once every document has been mapped.
+	 */
+	@Override
+	public void end() throws PepperModuleException {
+		super.end();
+		synchronized (this) {
+			if (sentencePool != null) {
+				sentencePool.shutdown();
+				sentencePool = null;
+			}
+		}
+	}
 }
@@ -0,0 +1,269 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import org.corpus_tools.pepper.modules.PepperModuleProperties;
+import org.corpus_tools.pepper.modules.PepperModuleProperty;
+
+/**
+ * Customization properties for the {@link StreusleImporter}. These can be set on the importer
+ * in a .pepper workflow file, e.g. &lt;property key="streusle.streaming"&gt;true&lt;/property&gt;.
+ */
+public class StreusleImporterProperties extends PepperModuleProperties {
+    public static final String PREFIX = "streusle.";
+
+    /**
+     * If true, sentences are mapped one at a time as they are parsed instead of parsing the whole
+     * document into a JsonValue tree first. Lowers peak memory on large documents.
+     */
+    public static final String PROP_STREAMING = PREFIX + "streaming";
+
+    /**
+     * How many threads to build sentences on. Sentences are still merged into the document graph in
+     * order, so the result is the same as with 1, the default. Only used when not streaming.
+     * The importer makes one pool of this many threads for all documents. Pepper may map several
+     * documents at once on threads of its own, which then all wait on that same pool.
+     */
+    public static final String PROP_PARALLELISM = PREFIX + "parallelism";
+
+    /**
+     * If true (the default), the token-level columns are handled in a single pass over each sentence's
+     * tokens. If false, each column gets its own loop, which is slower but easier to follow. The graph
+     * is the same either way.
+     */
+    public static final String PROP_FUSED_COLUMNS = PREFIX + "fusedColumns";
+
+    /**
+     * If true and the importer's path is a single JSON file with the whole corpus in it (e.g. the output
+     * of conllulex2json.py or govobj.py), it is split into one file per document before importing, just
+     * like scripts/split_streusle_json.py used to do. See {@link StreusleCorpusSplitter}.
+     */
+    public static final String PROP_SPLIT_CORPUS = PREFIX + "splitCorpus";
+
+    /**
+     * Where {@link #PROP_SPLIT_CORPUS} writes the documents to. Defaults to a directory next to the corpus
+     * file, named like it minus the .json, e.g. streusle.gov/ for streusle.gov.json.
+     */
+    public static final String PROP_SPLIT_DIRECTORY = PREFIX + "splitDirectory";
+
+    /**
+     * Import each document of a single-file STREUSLE corpus straight out of that file, without splitting
+     * it on disk first. Takes precedence over {@link #PROP_SPLIT_CORPUS}.
+     */
+    public static final String PROP_VIRTUAL_DOCUMENTS = PREFIX + "virtualDocuments";
+
+    /**
+     * If set, the graph of every document mapped is kept in this directory, keyed on a hash of the document's
+     * JSON, and a document that hasn't changed since is loaded from there instead of being mapped again.
+     * See {@link DocumentCache}.
+     */
+    public static final String PROP_CACHE_DIRECTORY = PREFIX + "cacheDirectory";
+
+    /**
+     * If true, each token gets at most one single-token span, and pos, lextag, ss, ss2, lexcat and lexlemma
+     * all go on it, instead of one span (and spanning relation) per annotation. See {@link TokenSpans}.
+     */
+    public static final String PROP_MERGE_TOKEN_SPANS = PREFIX + "mergeTokenSpans";
+
+    /**
+     * If false, enhanced dependencies (DEPS) aren't mapped, and there's no edeps or cycle layer.
+     */
+    public static final String PROP_EDEPS_LAYER = PREFIX + "edepsLayer";
+
+    /**
+     * If false, enhanced dependencies that would close a cycle of "ude" relations are left out instead of
+     * going in the cycle layer as "udecycle" relations.
+     */
+    public static final String PROP_CYCLE_LAYER = PREFIX + "cycleLayer";
+
+    /**
+     * If false, heuristic relations aren't mapped: no govobj layer, and no config annotations.
+     */
+    public static final String PROP_GOVOBJ_LAYER = PREFIX + "govobjLayer";
+
+    /**
+     * If false, XPOS isn't annotated on the tokens themselves as "pos" (only on spans, see {@link #PROP_SPAN_POS}).
+     */
+    public static final String PROP_TOKEN_POS = PREFIX + "tokenPos";
+
+    /**
+     * If false, XPOS isn't annotated on single-token spans as "pos" (only on the tokens, see {@link #PROP_TOKEN_POS}).
+     */
+    public static final String PROP_SPAN_POS = PREFIX + "spanPos";
+
+    /**
+     * If false, sentence spans don't get the sentence's MWE markup as "sent_mwe".
+     */
+    public static final String PROP_SENT_MWE = PREFIX + "sentMwe";
+
+    /**
+     * Column groups. Each one, if false, isn't mapped at all: FEATS; HEAD and DEPREL; MISC; SMWE and WMWE
+     * (the MWE spans, and with them everything annotated on them); LEXTAG; and the supersense columns
+     * (lexcat, lexlemma, ss and ss2 of single-word expressions and strong MWEs, and wlemma of weak ones).
+     */
+    public static final String PROP_FEATS = PREFIX + "feats";
+    public static final String PROP_DEPENDENCIES = PREFIX + "dependencies";
+    public static final String PROP_MISC = PREFIX + "misc";
+    public static final String PROP_MWES = PREFIX + "mwes";
+    public static final String PROP_LEXTAG = PREFIX + "lextag";
+    public static final String PROP_SUPERSENSES = PREFIX + "supersenses";
+
+    /**
+     * Every property that changes the graph that gets built, which is what {@link DocumentCache} keys on.
+     */
+    static final String[] GRAPH_PROPERTIES = {
+            PROP_MERGE_TOKEN_SPANS, PROP_EDEPS_LAYER, PROP_CYCLE_LAYER, PROP_GOVOBJ_LAYER, PROP_TOKEN_POS,
+            PROP_SPAN_POS, PROP_SENT_MWE, PROP_FEATS, PROP_DEPENDENCIES, PROP_MISC, PROP_MWES, PROP_LEXTAG,
+            PROP_SUPERSENSES
+    };
+
+    public StreusleImporterProperties() {
+        this.addProperty(new PepperModuleProperty<>(PROP_STREAMING, Boolean.class,
+                "Map each sentence as soon as it has been parsed instead of building a JSON tree "
+                        + "for the whole document first.",
+                false, false));
+        this.addProperty(new PepperModuleProperty<>(PROP_PARALLELISM, Integer.class,
+                "Number of threads to build each document's sentences on. The graph is identical to the "
+                        + "one built with 1 (the default). Ignored in streaming mode. All documents share one "
+                        + "pool of this many threads, on top of the threads Pepper itself maps documents on.",
+                1, false));
+        this.addProperty(new PepperModuleProperty<>(PROP_FUSED_COLUMNS, Boolean.class,
+                "Handle all token columns in one pass over each sentence instead of one loop per column. "
+                        + "Doesn't change the result.",
+                true, false));
+        this.addProperty(new PepperModuleProperty<>(PROP_SPLIT_CORPUS, Boolean.class,
+                "Split a single-file STREUSLE corpus into one file per document before importing.",
+                false, false));
+        this.addProperty(new PepperModuleProperty<>(PROP_SPLIT_DIRECTORY, String.class,
+                "Directory to write the documents of a split corpus to. Defaults to a directory named "
+                        + "after the corpus file, next to it.",
+                null, false));
+        this.addProperty(new PepperModuleProperty<>(PROP_VIRTUAL_DOCUMENTS, Boolean.class,
+                "Import each document of a single-file STREUSLE corpus directly from the byte ranges its "
+                        + "sentences occupy in that file, instead of splitting it on disk.",
+                false, false));
+        this.addProperty(new PepperModuleProperty<>(PROP_CACHE_DIRECTORY, String.class,
+                "Directory to cache document graphs in, so that documents that haven't changed since the last "
+                        + "import aren't mapped again. No caching if not set.",
+                null, false));
+        this.addProperty(new PepperModuleProperty<>(PROP_MERGE_TOKEN_SPANS, Boolean.class,
+                "Put all of a token's span annotations (pos, lextag, ss, ss2, lexcat, lexlemma) on one span "
+                        + "instead of a span each. Makes for a much smaller graph; ANNIS grids look the same.",
+                false, false));
+        this.addProperty(new PepperModuleProperty<>(PROP_EDEPS_LAYER, Boolean.class,
+                "Map enhanced dependencies (DEPS) into the edeps and cycle layers.",
+                true, false));
+        this.addProperty(new PepperModuleProperty<>(PROP_CYCLE_LAYER, Boolean.class,
+                "Keep enhanced dependencies that would close a cycle, as udecycle relations in the cycle layer. "
+                        + "If false, they are left out.",
+                true, false));
+        this.addProperty(new PepperModuleProperty<>(PROP_GOVOBJ_LAYER, Boolean.class,
+                "Map heuristic relations (gov, obj and config) into the govobj layer.",
+                true, false));
+        this.addProperty(new PepperModuleProperty<>(PROP_TOKEN_POS, Boolean.class,
+                "Annotate XPOS as pos on the tokens.",
+                true, false));
+        this.addProperty(new PepperModuleProperty<>(PROP_SPAN_POS, Boolean.class,
+                "Annotate XPOS as pos on single-token spans too, for ANNIS grids.",
+                true, false));
+        this.addProperty(new PepperModuleProperty<>(PROP_SENT_MWE, Boolean.class,
+                "Annotate every sentence span with the sentence's MWE markup as sent_mwe.",
+                true, false));
+        this.addProperty(new PepperModuleProperty<>(PROP_FEATS, Boolean.class,
+                "Map FEATS.",
+                true, false));
+        this.addProperty(new PepperModuleProperty<>(PROP_DEPENDENCIES, Boolean.class,
+                "Map HEAD and DEPREL as ud dependency relations.",
+                true, false));
+        this.addProperty(new PepperModuleProperty<>(PROP_MISC, Boolean.class,
+                "Map MISC.",
+                true, false));
+        this.addProperty(new PepperModuleProperty<>(PROP_MWES, Boolean.class,
+                "Map SMWE and WMWE as MWE spans, along with their annotations.",
+                true, false));
+        this.addProperty(new PepperModuleProperty<>(PROP_LEXTAG, Boolean.class,
+                "Map LEXTAG.",
+                true, false));
+        this.addProperty(new PepperModuleProperty<>(PROP_SUPERSENSES, Boolean.class,
+                "Map lexcat, lexlemma, ss and ss2 (and wlemma for weak MWEs).",
+                true, false));
+    }
+
+    public boolean isStreaming() {
+        return (Boolean) this.getProperty(PROP_STREAMING).getValue();
+    }
+
+    public int getParallelism() {
+        return (Integer) this.getProperty(PROP_PARALLELISM).getValue();
+    }
+
+    public boolean isFusedColumns() {
+        return (Boolean) this.getProperty(PROP_FUSED_COLUMNS).getValue();
+    }
+
+    public boolean isSplitCorpus() {
+        return (Boolean) this.getProperty(PROP_SPLIT_CORPUS).getValue();
+    }
+
+    public String getSplitDirectory() {
+        return (String) this.getProperty(PROP_SPLIT_DIRECTORY).getValue();
+    }
+
+    public boolean isVirtualDocuments() {
+        return (Boolean) this.getProperty(PROP_VIRTUAL_DOCUMENTS).getValue();
+    }
+
+    public String getCacheDirectory() {
+        return (String) this.getProperty(PROP_CACHE_DIRECTORY).getValue();
+    }
+
+    public boolean isMergeTokenSpans() {
+        return (Boolean) this.getProperty(PROP_MERGE_TOKEN_SPANS).getValue();
+    }
+
+    public boolean isEdepsLayer() {
+        return (Boolean) this.getProperty(PROP_EDEPS_LAYER).getValue();
+    }
+
+    public boolean isCycleLayer() {
+        return (Boolean) this.getProperty(PROP_CYCLE_LAYER).getValue();
+    }
+
+    public boolean isGovobjLayer() {
+        return (Boolean) this.getProperty(PROP_GOVOBJ_LAYER).getValue();
+    }
+
+    public boolean isTokenPos() {
+        return (Boolean) this.getProperty(PROP_TOKEN_POS).getValue();
+    }
+
+    public boolean isSpanPos() {
+        return (Boolean) this.getProperty(PROP_SPAN_POS).getValue();
+    }
+
+    public boolean isSentMwe() {
+        return (Boolean) this.getProperty(PROP_SENT_MWE).getValue();
+    }
+
+    public boolean isFeats() {
+        return (Boolean) this.getProperty(PROP_FEATS).getValue();
+    }
+
+    public boolean isDependencies() {
+        return (Boolean) this.getProperty(PROP_DEPENDENCIES).getValue();
+    }
+
+    public boolean isMisc() {
+        return (Boolean) this.getProperty(PROP_MISC).getValue();
+    }
+
+    public boolean isMwes() {
+        return (Boolean) this.getProperty(PROP_MWES).getValue();
+    }
+
+    public boolean isLextag() {
+        return (Boolean) this.getProperty(PROP_LEXTAG).getValue();
+    }
+
+    public boolean isSupersenses() {
+        return (Boolean) this.getProperty(PROP_SUPERSENSES).getValue();
+    }
+}
@@ -1,33 +1,105 @@
 package edu.georgetown.uis.corpling.pepper.streusle;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
 import com.eclipsesource.json.JsonArray;
 import com.eclipsesource.json.JsonObject;
+import edu.georgetown.uis.corpling.pepper.streusle.SentenceStage.Node;
+import edu.georgetown.uis.corpling.pepper.streusle.SentenceStage.Relation;
 import org.corpus_tools.pepper.common.DOCUMENT_STATUS;
 import org.corpus_tools.pepper.impl.PepperMapperImpl;
 import org.corpus_tools.salt.SaltFactory;
 import org.corpus_tools.salt.common.*;
-import org.corpus_tools.salt.core.SAnnotation;
 import org.corpus_tools.salt.core.SLayer;
-import org.corpus_tools.salt.core.SNode;
-import org.corpus_tools.salt.core.SRelation;
 import org.eclipse.emf.common.util.URI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonByteParser;
 import com.eclipsesource.json.JsonValue;
+import com.eclipsesource.json.JsonRecord;
+import com.eclipsesource.json.JsonRecordHandler;
+import com.eclipsesource.json.NameTable;
+import com.eclipsesource.json.RecordSchema;
 
 
 public class StreusleMapper extends PepperMapperImpl {
     private static final Logger logger = LoggerFactory.getLogger(StreusleImporter.class);
 
-    private void annotateNode(SNode node, String key, String value) {
-        SAnnotation ann = SaltFactory.createSAnnotation();
-        ann.setName(key);
-        ann.setValue(value);
-        node.addAnnotation(ann);
+    // set by StreusleImporter, see setSentencePool
+    private ForkJoinPool sentencePool;
+
+    /**
+     * Every member name in STREUSLE JSON. Each token, swe and smwe repeats the same few names, so we have
+     * the parser hand out these instead of allocating new ones every time.
+     */
+    static final NameTable FIELD_NAMES = new NameTable(
+            // sentences
+            "sent_id", "streusle_sent_id", "text", "mwe", "toks", "etoks", "swes", "smwes", "wmwes",
+            // tokens
+            "#", "word", "lemma", "upos", "xpos", "feats", "head", "deprel", "edeps", "misc", "smwe", "wmwe",
+            "lextag",
+            // lexical units
+            "lexlemma", "lexcat", "ss", "ss2", "toknums", "heuristic_relation",
+            "gov", "govlemma", "obj", "objlemma", "config");
+
+    /**
+     * The members of a token in "toks" or "etoks", in the order conllulex2json.py writes them. We parse tokens
+     * into JsonRecords of this schema (see {@link #parse}) and read their members by slot.
+     */
+    static final RecordSchema TOKEN = new RecordSchema("#", "word", "lemma", "upos", "xpos", "feats", "head",
+            "deprel", "edeps", "misc", "smwe", "wmwe", "lextag");
+    static final int ID = TOKEN.indexOf("#"), WORD = TOKEN.indexOf("word");
+
+    /**
+     * Same for the swes, smwes and wmwes. (wmwes only have a lexlemma and toknums.)
+     */
+    static final RecordSchema LEXICAL_UNIT = new RecordSchema("lexlemma", "lexcat", "ss", "ss2", "toknums",
+            "heuristic_relation");
+    private static final int LEXLEMMA = LEXICAL_UNIT.indexOf("lexlemma"), LEXCAT = LEXICAL_UNIT.indexOf("lexcat"),
+            SS = LEXICAL_UNIT.indexOf("ss"), SS2 = LEXICAL_UNIT.indexOf("ss2"),
+            TOKNUMS = LEXICAL_UNIT.indexOf("toknums"), HEURISTIC_RELATION = LEXICAL_UNIT.indexOf("heuristic_relation");
+
+    /**
+     * Parse STREUSLE JSON (a document, or a single sentence) the way the mapper wants it: tokens and
+     * lexical units as JsonRecords, and known member names interned.
+     */
+    static JsonValue parse(ByteBuffer input) {
+        JsonRecordHandler handler = new JsonRecordHandler(TOKEN, LEXICAL_UNIT);
+        JsonByteParser parser = new JsonByteParser(handler);
+        parser.setNameTable(FIELD_NAMES);
+        parser.parse(input);
+        return handler.getValue();
+    }
+
+    /**
+     * A member of a token or lexical unit, read from its slot if the object is a JsonRecord of that schema
+     * (which it is unless it had unexpected members), and looked up by name otherwise.
+     */
+    static JsonValue field(JsonObject object, RecordSchema schema, int slot) {
+        if (object instanceof JsonRecord && ((JsonRecord) object).getSchema() == schema) {
+            return ((JsonRecord) object).get(slot);
+        }
+        return object.get(schema.getName(slot));
+    }
+
+    // a string member of a lexical unit, or null if it's missing or null
+    private static String lexicalUnitString(JsonObject unit, int slot) {
+        JsonValue value = field(unit, LEXICAL_UNIT, slot);
+        return value == null || value.isNull() ? null : value.asString();
+    }
+
+    // the heuristic_relation of a lexical unit, or null if it's missing or null
+    private static JsonObject heuristicRelation(JsonObject unit) {
+        JsonValue value = field(unit, LEXICAL_UNIT, HEURISTIC_RELATION);
+        return value == null || value.isNull() ? null : value.asObject();
     }
 
     /**
@@ -35,11 +107,16 @@ public class StreusleMapper extends PepperMapperImpl {
      * by getting each sentence's text and turning it into a tab-separated string.
      * Finally, we make a TextualDS for the whole thing and return it. This is the
      * foundation of our document-level SALT graph.
+     * @param sentenceOffsets filled in with the offset each sentence begins at in the TextualDS,
+     *                        parallel to sentences. We know these anyway while we're appending,
+     *                        and searching for them in the text afterwards would be quadratic
+     *                        (and wrong whenever a sentence's text repeats).
      */
-    private STextualDS buildTextualDS(SDocumentGraph doc, List<JsonObject> sentences) {
+    private STextualDS buildTextualDS(SDocumentGraph doc, List<JsonObject> sentences, int[] sentenceOffsets) {
         StringBuilder sentenceText = new StringBuilder();
-        for (JsonObject sentence : sentences) {
-            JsonValue tObj = sentence.get("text");
+        for (int i = 0; i < sentences.size(); i++) {
+            JsonValue tObj = sentences.get(i).get("text");
+            sentenceOffsets[i] = sentenceText.length();
             sentenceText.append(tObj.asString());
             sentenceText.append(" ");
         }
@@ -50,174 +127,259 @@ public class StreusleMapper extends PepperMapperImpl {
      * Goal: we now have a TextualDS for the whole document, and we need to make STokens for every token in the JSON.
      * Problem: the JSON tokens don't have the integral String offsets that we need in order to tell SALT where tokens
      *          begin and end
-     * Solution: "chomp our way" up the sentence string finding one word at a time using indexOf, keeping track
-     *           of how much of the string we've already chomped.
-     * @param doc the document graph
+     * Solution: "chomp our way" up the sentence string one word at a time, see {@link TokenOffsets}. Where the
+     *           text and the tokens don't agree we log what's wrong and make do, rather than failing the document.
+     * @param stage the staged graph operations for this sentence
      * @param tokens a JSON array of tokens, which are JSON objects
-     * @param primaryText from buildTextualDS--the STextualDS we'll build our tokens on
      * @param sentenceString The literal string content of the sentence we're processing
      * @param sOffset where in STextualDS this sentence BEGINS. We need this because our STextualDS
      *                indexes apply for the whole document text, not just for this sentence
      * @return The tokens that were created for this sentence
      */
-    private List<SToken> processWordField(SDocumentGraph doc, String sentenceId, List<JsonObject> tokens,
-                                          STextualDS primaryText, String sentenceString, int sOffset) {
-        List<SToken> sTokens = new ArrayList<>();
-        int lastTokEndIndex = 0;
-        int tokenId = 0;
-        for (JsonObject token : tokens) {
-            // what do we need to look for? simple, the next token in the sentence that hasn't been processed
-            String tokenString = token.get("word").asString();
-
-            // chomp chomp! only start looking from lastTokEndIndex
-            int beginIndex = sentenceString.indexOf(tokenString, lastTokEndIndex);
-            if (beginIndex < 0) {
-                throw new UnsupportedOperationException(
-                        "Couldn't find the token string `" + tokenString
-                                + "` after index " + lastTokEndIndex
-                                + " in sentence `" + sentenceString + "`"
-                );
-            }
-
-            // great, we found the token we wanted to find, as expected. Add its length so we know where it ended
-            lastTokEndIndex = beginIndex + tokenString.length();
+    List<Node> processWordField(SentenceStage stage, String sentenceId, List<JsonObject> tokens,
+                                String sentenceString, int sOffset) {
+        String[] forms = new String[tokens.size()];
+        boolean[] noSpaceAfter = new boolean[tokens.size()];
+        for (int i = 0; i < forms.length; i++) {
+            JsonObject token = tokens.get(i);
+            forms[i] = field(token, TOKEN, WORD).asString();
+            JsonValue misc = token.get("misc");
+            noSpaceAfter[i] = misc != null && !misc.isNull() && hasNoSpaceAfter(misc.asString());
+        }
+        TokenOffsets offsets = TokenOffsets.align(sentenceString, forms, noSpaceAfter);
+        if (!offsets.getMismatches().isEmpty()) {
+            logger.warn("The tokens of sentence {} don't match its text `{}`: {}", sentenceId, sentenceString,
+                    offsets.getMismatches());
+        }
+
+        List<Node> sTokens = new ArrayList<>(forms.length);
+        for (int i = 0; i < forms.length; i++) {
             // create the token, being CAREFUL to add the sOffset to account for any sentences before this one
-            SToken sToken = doc.createToken(primaryText, sOffset + beginIndex, sOffset + lastTokEndIndex);
+            Node sToken = stage.createToken(sOffset + offsets.getBegin(i), sOffset + offsets.getEnd(i));
             // give the token a name that lets us remember where it was
-            sToken.setName(sentenceId + "_" + ++tokenId);
+            stage.setName(sToken, sentenceId + "_" + (i + 1));
             sTokens.add(sToken);
         }
 
         return sTokens;
     }
 
+    // whether a MISC list has SpaceAfter=No, read straight off the string: this runs for every token, with
+    // or without the MISC annotations, so it mustn't cost a FeatureList (or a FeatureList cache entry)
+    private static boolean hasNoSpaceAfter(String misc) {
+        int start = 0;
+        while (start < misc.length()) {
+            int end = misc.indexOf('|', start);
+            if (end < 0) {
+                end = misc.length();
+            }
+            int equals = misc.indexOf('=', start);
+            if (equals < 0 || equals > end) {
+                equals = end;
+            }
+            // like FeatureList, the first SpaceAfter entry is the one that counts
+            if (equals - start == "SpaceAfter".length() && misc.startsWith("SpaceAfter", start)) {
+                return end - equals == "=No".length() && misc.startsWith("=No", equals);
+            }
+            start = end + 1;
+        }
+        return false;
+    }
+
     /**
      * Ellipsis tokens are stored in a separate key, "etoks", and so after we've processed regular tokens
      * we need to handle them as well. In addition to creating the token and annotating it for its ID,
      * we'll also need to insert (1) it and (2) its JsonObject into sTokens and tokens AND update the ID
-     * to SToken index id2token. After this function, all other functions will think an ellipsis token
+     * to SToken table id2token. After this function, all other functions will think an ellipsis token
      * is just any other old token.
      */
-    private void mergeEtoks(SDocumentGraph doc, String sentenceId,
-                            List<SToken> sTokens, List<JsonObject> tokens, JsonObject sentence,
-                            STextualDS primaryText, int sOffset, Map<String, SToken> id2token) {
+    void mergeEtoks(SentenceStage stage, String sentenceId,
+                    List<Node> sTokens, List<JsonObject> tokens, JsonObject sentence,
+                    int sOffset, TokenTable id2token) {
         JsonArray eTokenArray = sentence.get("etoks").asArray();
-        List<JsonObject> eTokens = new ArrayList<>();
-        for (JsonValue eToken : eTokenArray) {
-            eTokens.add(eToken.asObject());
+        int eTokenCount = eTokenArray.size();
+        if (eTokenCount == 0) {
+            return;
         }
 
-        for (JsonObject eTokenObject : eTokens) {
-            JsonArray idArray = eTokenObject.get("#").asArray();
-            // e.g. "10"
-            String baseTokenId = Integer.toString(idArray.get(0).asInt());
-            // e.g. "1"
+        // where each regular token is in tokens, by CONLLU ID, so that finding an etok's base token is a lookup
+        int[] positions = regularTokenPositions(tokens);
+        // for each etok: the position of the base token it comes after, and which of that token's etoks it is
+        int[] basePositions = new int[eTokenCount];
+        int[] counters = new int[eTokenCount];
+        Node[] eTokens = new Node[eTokenCount];
+        for (int k = 0; k < eTokenCount; k++) {
+            JsonArray idArray = field(eTokenArray.get(k).asObject(), TOKEN, ID).asArray();
+            // e.g. 10
+            int baseTokenId = idArray.get(0).asInt();
+            // e.g. 1
             int eTokenCounter = idArray.get(1).asInt();
             // e.g. "10.1"
             String eTokenId = idArray.get(2).asString();
 
-            // get a ref and index for the base token the etok appears after
-            int baseTokenIndex = 0;
-            while (!sTokens.get(baseTokenIndex)
-                    .getAnnotation("conllu_id").getValue().equals(baseTokenId)) {
-                baseTokenIndex++;
+            int basePosition = baseTokenId >= 0 && baseTokenId < positions.length ? positions[baseTokenId] : -1;
+            if (basePosition < 0) {
+                throw new RuntimeException("Ellipsis token " + eTokenId + " in sentence " + sentenceId
+                        + " comes after token " + baseTokenId + ", which doesn't exist.");
             }
 
-            // insert the etok as a zero-width token and also set the conllu_id
-            SToken eToken = doc.createToken(primaryText, sOffset, sOffset);
-            eToken.setName(sentenceId + "_" + eTokenId);
-            annotateNode(eToken, "conllu_id", eTokenId);
+            // create the etok as a zero-width token and also set the conllu_id
+            Node eToken = stage.createToken(sOffset, sOffset);
+            stage.setName(eToken, sentenceId + "_" + eTokenId);
+            stage.annotate(eToken, "conllu_id", eTokenId);
             id2token.put(eTokenId, eToken);
 
-            // add them to our lists so that for the rest of processing they'll be treated as any other token
-            sTokens.add(baseTokenIndex + eTokenCounter, eToken);
-            tokens.add(baseTokenIndex + eTokenCounter, eTokenObject);
+            basePositions[k] = basePosition;
+            counters[k] = eTokenCounter;
+            eTokens[k] = eToken;
+        }
+
+        // order the etoks by base token, then by counter: a counting sort on the base token's position, and
+        // an insertion sort within each base token's etoks (which are nearly always in order already)
+        int[] starts = new int[tokens.size() + 1];
+        for (int basePosition : basePositions) {
+            starts[basePosition + 1]++;
+        }
+        for (int p = 0; p < tokens.size(); p++) {
+            starts[p + 1] += starts[p];
+        }
+        int[] order = new int[eTokenCount];
+        int[] next = Arrays.copyOf(starts, tokens.size());
+        for (int k = 0; k < eTokenCount; k++) {
+            int slot = next[basePositions[k]]++;
+            while (slot > starts[basePositions[k]] && counters[order[slot - 1]] > counters[k]) {
+                order[slot] = order[slot - 1];
+                slot--;
+            }
+            order[slot] = k;
+        }
+
+        // lay out every token in its final place in one pass, so that for the rest of processing the etoks
+        // are treated as any other token
+        List<Node> mergedSTokens = new ArrayList<>(sTokens.size() + eTokenCount);
+        List<JsonObject> mergedTokens = new ArrayList<>(tokens.size() + eTokenCount);
+        int e = 0;
+        for (int p = 0; p < tokens.size(); p++) {
+            mergedSTokens.add(sTokens.get(p));
+            mergedTokens.add(tokens.get(p));
+            for (; e < eTokenCount && basePositions[order[e]] == p; e++) {
+                mergedSTokens.add(eTokens[order[e]]);
+                mergedTokens.add(eTokenArray.get(order[e]).asObject());
+            }
+        }
+        sTokens.clear();
+        sTokens.addAll(mergedSTokens);
+        tokens.clear();
+        tokens.addAll(mergedTokens);
+    }
+
+    /**
+     * @return by CONLLU ID, the position in tokens of each (non-ellipsis) token, or -1 for IDs there's no token for
+     */
+    private static int[] regularTokenPositions(List<JsonObject> tokens) {
+        int[] positions = new int[tokens.size() + 1];
+        Arrays.fill(positions, -1);
+        for (int p = 0; p < tokens.size(); p++) {
+            JsonValue idVal = field(tokens.get(p), TOKEN, ID);
+            if (!idVal.isNumber()) {
+                continue;
+            }
+            int id = idVal.asInt();
+            if (id < 0) {
+                continue;
+            }
+            if (id >= positions.length) {
+                int length = positions.length;
+                positions = Arrays.copyOf(positions, Math.max(length * 2, id + 1));
+                Arrays.fill(positions, length, positions.length, -1);
+            }
+            // like the scan this replaces, the first token with an ID wins
+            if (positions[id] < 0) {
+                positions[id] = p;
+            }
         }
+        return positions;
     }
 
     /**
      * Annotate words with their lextag. We make a span because ANNIS's grid visualizer doesn't
      * mixing span annotations and token annotations.
      */
-    private void processLextag(SDocumentGraph doc, List<SToken> sTokens, List<JsonObject> tokens) {
+    private void processLextag(SentenceStage stage, List<Node> sTokens, List<JsonObject> tokens,
+                               TokenSpans tokenSpans) {
         for (int i = 0; i < sTokens.size(); i++) {
             JsonValue jsonValue = tokens.get(i).asObject().get("lextag");
             if (jsonValue == null || jsonValue.isNull()) {
                 continue;
             }
-            SToken sToken = sTokens.get(i);
-            SSpan span = doc.createSpan(sToken);
-            annotateNode(span, "lextag", jsonValue.asString());
+            Node span = tokenSpans.spanFor(stage, sTokens.get(i));
+            stage.annotate(span, "lextag", jsonValue.asString());
         }
     }
 
-    private void processGovobj(SDocumentGraph doc, Map<String, SToken> id2token,
+    private void processGovobj(SentenceStage stage, TokenTable id2token,
                                SLayer govobj, JsonObject sweObj, JsonObject hr) {
-        int pId = sweObj.get("toknums").asArray().get(0).asInt();
-        SSpan span = doc.createSpan(id2token.get(Integer.toString(pId)));
-        annotateNode(span, "config", hr.get("config").asString());
+        int pId = field(sweObj, LEXICAL_UNIT, TOKNUMS).asArray().get(0).asInt();
+        Node span = stage.createSpan(id2token.get(pId));
+        stage.annotate(span, "config", hr.get("config").asString());
 
         if (!hr.get("gov").isNull()) {
             int govId = hr.get("gov").asInt();
-            SPointingRelation govRel = SaltFactory.createSPointingRelation();
-            govRel.setType("govobj");
-            govRel.setSource(id2token.get(Integer.toString(pId)));
-            govRel.setTarget(id2token.get(Integer.toString(govId)));
-            SAnnotation ann = SaltFactory.createSAnnotation();
-            ann.setName("govobj_type");
-            ann.setValue("gov");
-            govRel.addAnnotation(ann);
-            govobj.addRelation(govRel);
+            Relation govRel = stage.createPointingRelation("govobj",
+                    id2token.get(pId), id2token.get(govId));
+            govRel.annotate("govobj_type", "gov");
+            stage.addRelation(govobj, govRel);
         }
 
         if (!hr.get("obj").isNull()) {
             int objId = hr.get("obj").asInt();
-            SPointingRelation objRel = SaltFactory.createSPointingRelation();
-            objRel.setType("govobj");
-            objRel.setSource(id2token.get(Integer.toString(pId)));
-            objRel.setTarget(id2token.get(Integer.toString(objId)));
-            SAnnotation ann = SaltFactory.createSAnnotation();
-            ann.setName("govobj_type");
-            ann.setValue("obj");
-            objRel.addAnnotation(ann);
-            govobj.addRelation(objRel);
+            Relation objRel = stage.createPointingRelation("govobj",
+                    id2token.get(pId), id2token.get(objId));
+            objRel.annotate("govobj_type", "obj");
+            stage.addRelation(govobj, objRel);
         }
     }
 
     /**
-     * Annotate single-word expressions with supersense and lexcat information.
+     * Annotate single-word expressions with supersense and lexcat information (if supersenses), and map their
+     * heuristic relations (unless govobj is null).
      */
-    private void processSwes(SDocumentGraph doc, JsonObject sentence, Map<String, SToken> id2token, SLayer govobj) {
+    private void processSwes(SentenceStage stage, JsonObject sentence, TokenTable id2token, boolean supersenses,
+                             SLayer govobj, TokenSpans tokenSpans) {
         // a JsonObject mapping an ID like "1" to another JsonObject
         JsonObject swes = sentence.get("swes").asObject();
 
         // loop over keys
         for (String sweId: swes.names()) {
             JsonObject sweObj = swes.get(sweId).asObject();
-            String ss = sweObj.get("ss").isNull() ? null : sweObj.get("ss").asString();
-            String ss2 = sweObj.get("ss2").isNull() ? null : sweObj.get("ss2").asString();
-            String lexcat = sweObj.get("lexcat").isNull() ? null : sweObj.get("lexcat").asString();
-            String lexlemma = sweObj.get("lexlemma").isNull() ? null : sweObj.get("lexlemma").asString();
-            for (JsonValue tokNum : sweObj.get("toknums").asArray()) {
-                String tokId = Integer.toString(tokNum.asInt());
-                SToken sToken = id2token.get(tokId);
-                SSpan span = doc.createSpan(sToken);
+            String ss = lexicalUnitString(sweObj, SS);
+            String ss2 = lexicalUnitString(sweObj, SS2);
+            String lexcat = lexicalUnitString(sweObj, LEXCAT);
+            String lexlemma = lexicalUnitString(sweObj, LEXLEMMA);
+            JsonObject hr = govobj == null ? null : heuristicRelation(sweObj);
+            for (JsonValue tokNum : field(sweObj, LEXICAL_UNIT, TOKNUMS).asArray()) {
+                if (!supersenses) {
+                    if (hr != null) {
+                        processGovobj(stage, id2token, govobj, sweObj, hr);
+                    }
+                    continue;
+                }
+                Node span = tokenSpans.spanFor(stage, id2token.get(tokNum.asInt()));
 
                 if (ss != null) {
-                    annotateNode(span, "ss", ss);
+                    stage.annotate(span, "ss", ss);
                 }
                 if (ss2 != null) {
-                    annotateNode(span, "ss2", ss2);
+                    stage.annotate(span, "ss2", ss2);
                 }
                 if (lexcat != null) {
-                    annotateNode(span, "lexcat", lexcat);
+                    stage.annotate(span, "lexcat", lexcat);
                 }
                 if (lexlemma != null) {
-                    annotateNode(span, "lexlemma", lexlemma);
+                    stage.annotate(span, "lexlemma", lexlemma);
                 }
-                if (sweObj.get("heuristic_relation") != null && !sweObj.get("heuristic_relation").isNull()) {
-                    JsonObject hr = sweObj.get("heuristic_relation").asObject();
-                    processGovobj(doc, id2token, govobj, sweObj, hr);
+                if (hr != null) {
+                    processGovobj(stage, id2token, govobj, sweObj, hr);
                 }
             }
         }
@@ -225,83 +387,68 @@ public class StreusleMapper extends PepperMapperImpl {
 
     /**
      * Annotate strong multiword expressions with supersense, lexcat, and lexlemma information.
-     * We rely on the SSpans that were already created for MWEs, and we rely on the id2mwe map
+     * We rely on the SSpans that were already created for MWEs, and we rely on id2mwe
      * to find them based on the ID we find under the "smwes" or "wmwes" keys.
+     * If id2mwe is null, we only map the heuristic relations, and if govobj is null, we skip those.
      */
-    private void processSmwes(SDocumentGraph doc, JsonObject sentence, Map<Integer, SSpan> id2mwe,
-                             Map<String, SToken> id2token, SLayer govobj) {
+    private void processSmwes(SentenceStage stage, JsonObject sentence, MweGroups id2mwe,
+                              TokenTable id2token, SLayer govobj) {
         // a JsonObject mapping an ID like "1" to another JsonObject
         JsonObject mwes = sentence.get("smwes").asObject();
 
         for (String mweId: mwes.names()) {
             JsonObject mweObj = mwes.get(mweId).asObject();
 
-            String ss = null, ss2 = null, lexcat = null, lexlemma = null;
-            JsonObject hr = null;
-            if (mweObj.get("ss") != null && !mweObj.get("ss").isNull()) {
-                ss = mweObj.get("ss").asString();
-            }
-            if (mweObj.get("ss2") != null && !mweObj.get("ss2").isNull()) {
-                ss2 = mweObj.get("ss2").asString();
-            }
-            if (mweObj.get("lexcat") != null && !mweObj.get("lexcat").isNull()) {
-                lexcat = mweObj.get("lexcat").asString();
-            }
-            if (mweObj.get("lexlemma") != null && !mweObj.get("lexlemma").isNull()) {
-                lexlemma = mweObj.get("lexlemma").asString();
-            }
-            if (mweObj.get("heuristic_relation") != null && !mweObj.get("heuristic_relation").isNull()) {
-                hr = mweObj.get("heuristic_relation").asObject();
-            }
+            String ss = lexicalUnitString(mweObj, SS);
+            String ss2 = lexicalUnitString(mweObj, SS2);
+            String lexcat = lexicalUnitString(mweObj, LEXCAT);
+            String lexlemma = lexicalUnitString(mweObj, LEXLEMMA);
+            JsonObject hr = govobj == null ? null : heuristicRelation(mweObj);
 
-            SSpan mweSpan = id2mwe.get(Integer.parseInt(mweId));
-            if (ss != null) {
-                annotateNode(mweSpan, "ss", ss);
-            }
-            if (ss2 != null) {
-                annotateNode(mweSpan, "ss2", ss2);
-            }
-            if (lexcat != null) {
-                annotateNode(mweSpan, "lexcat", lexcat);
-            }
-            if (lexlemma != null) {
-                annotateNode(mweSpan, "lexlemma", lexlemma);
+            if (id2mwe != null) {
+                Node mweSpan = id2mwe.getSpan(Integer.parseInt(mweId));
+                if (ss != null) {
+                    stage.annotate(mweSpan, "ss", ss);
+                }
+                if (ss2 != null) {
+                    stage.annotate(mweSpan, "ss2", ss2);
+                }
+                if (lexcat != null) {
+                    stage.annotate(mweSpan, "lexcat", lexcat);
+                }
+                if (lexlemma != null) {
+                    stage.annotate(mweSpan, "lexlemma", lexlemma);
+                }
             }
             if (hr != null) {
-                processGovobj(doc, id2token, govobj, mweObj, hr);
+                processGovobj(stage, id2token, govobj, mweObj, hr);
             }
         }
     }
 
     /**
      * Annotate weak multiword expressions with lexlemma information.
-     * We rely on the SSpans that were already created for MWEs, and we rely on the id2mwe map
+     * We rely on the SSpans that were already created for MWEs, and we rely on id2mwe
      * to find them based on the ID we find under the "smwes" or "wmwes" keys.
+     * Like processSmwes, id2mwe and govobj may be null.
      */
-    private void processWmwes(SDocumentGraph doc, JsonObject sentence, Map<Integer, SSpan> id2mwe,
-                              Map<String, SToken> id2token, SLayer govobj) {
+    private void processWmwes(SentenceStage stage, JsonObject sentence, MweGroups id2mwe,
+                              TokenTable id2token, SLayer govobj) {
         // a JsonObject mapping an ID like "1" to another JsonObject
         JsonObject mwes = sentence.get("wmwes").asObject();
 
         for (String mweId: mwes.names()) {
             JsonObject mweObj = mwes.get(mweId).asObject();
 
-            String wlemma = null;
-            JsonObject hr = null;
-            if (mweObj.get("lexlemma") != null && !mweObj.get("lexlemma").isNull()) {
-                wlemma = mweObj.get("lexlemma").asString();
-            }
-            if (mweObj.get("heuristic_relation") != null && !mweObj.get("heuristic_relation").isNull()) {
-                hr = mweObj.get("heuristic_relation").asObject();
-            }
+            String wlemma = lexicalUnitString(mweObj, LEXLEMMA);
+            JsonObject hr = govobj == null ? null : heuristicRelation(mweObj);
 
-            SSpan mweSpan = id2mwe.get(Integer.parseInt(mweId));
             // NOTE: in the JSON it's called lexlemma, but we'll annotate it as wlemma.
-            if (wlemma != null) {
-                annotateNode(mweSpan, "wlemma", wlemma);
+            if (id2mwe != null && wlemma != null) {
+                stage.annotate(id2mwe.getSpan(Integer.parseInt(mweId)), "wlemma", wlemma);
             }
             if (hr != null) {
-                processGovobj(doc, id2token, govobj, mweObj, hr);
+                processGovobj(stage, id2token, govobj, mweObj, hr);
             }
         }
     }
@@ -309,15 +456,15 @@ public class StreusleMapper extends PepperMapperImpl {
     /**
      * Many columns are simply an arbitrary string we associate with an SAnnotation. Use this function to handle them.
      */
-    private void processSimpleStringField(List<SToken> sTokens, List<JsonObject> tokens,
-                                          String jsonName, String annotationName) {
+    void processSimpleStringField(SentenceStage stage, List<Node> sTokens, List<JsonObject> tokens,
+                                  String jsonName, String annotationName) {
         for (int i = 0; i < sTokens.size(); i++) {
             JsonValue jsonValue = tokens.get(i).asObject().get(jsonName);
             if (jsonValue == null || jsonValue.isNull()) {
                 continue;
             }
-            SToken sToken = sTokens.get(i);
-            annotateNode(sToken, annotationName, jsonValue.asString());
+            Node sToken = sTokens.get(i);
+            stage.annotate(sToken, annotationName, jsonValue.asString());
         }
     }
 
@@ -326,33 +473,33 @@ public class StreusleMapper extends PepperMapperImpl {
      * (This is needed if the annotation is to be viewed in an ANNIS grid visualization.)
      */
     private void processSimpleStringFieldAsSpanAnnotation(
-            SDocumentGraph doc, List<SToken> sTokens, List<JsonObject> tokens, String jsonName, String annotationName
+            SentenceStage stage, List<Node> sTokens, List<JsonObject> tokens, String jsonName, String annotationName,
+            TokenSpans tokenSpans
     ) {
         for (int i = 0; i < sTokens.size(); i++) {
             JsonValue jsonValue = tokens.get(i).asObject().get(jsonName);
             if (jsonValue == null || jsonValue.isNull()) {
                 continue;
             }
-            SToken sToken = sTokens.get(i);
-            SSpan span = doc.createSpan(sToken);
-            annotateNode(span, annotationName, jsonValue.asString());
+            Node span = tokenSpans.spanFor(stage, sTokens.get(i));
+            stage.annotate(span, annotationName, jsonValue.asString());
         }
     }
 
     /**
-     * Annotates tokens with their CONLLU ID and also returns a map from CONLLU ID to SToken--useful for
-     * adding dependencies later. Why is it Map<String and not Map<Integer? Because non-integral CONLLU
-     * IDs are allowed: supertokens (e.g. 5-6) and ellipsis tokens (e.g. 5.1).
-     * @return A map from 1-indexed CONLLU ID (e.g. 5) as a string to the SToken instance.
+     * Annotates tokens with their CONLLU ID and also returns a table from CONLLU ID to SToken--useful for
+     * adding dependencies later. Why not just an int-indexed array? Because non-integral CONLLU
+     * IDs are allowed: supertokens (e.g. 5-6) and ellipsis tokens (e.g. 5.1). mergeEtoks adds the latter.
+     * @return A table from 1-indexed CONLLU ID (e.g. 5) to the SToken instance.
      */
-    private Map<String, SToken> processIdField(List<SToken> sTokens, List<JsonObject> tokens) {
-        Map<String, SToken> id2token = new HashMap<>();
+    TokenTable processIdField(SentenceStage stage, List<Node> sTokens, List<JsonObject> tokens) {
+        TokenTable id2token = new TokenTable(tokens.size());
 
         for (int i = 0; i < tokens.size(); i++) {
-            JsonValue idVal = tokens.get(i).asObject().get("#");
-            String id = Integer.toString(idVal.asInt());
-            SToken sToken = sTokens.get(i);
-            annotateNode(sToken, "conllu_id", id);
+            JsonValue idVal = field(tokens.get(i), TOKEN, ID);
+            int id = idVal.asInt();
+            Node sToken = sTokens.get(i);
+            stage.annotate(sToken, "conllu_id", Integer.toString(id));
             id2token.put(id, sToken);
         }
 
@@ -363,239 +510,187 @@ public class StreusleMapper extends PepperMapperImpl {
      * Annotates the token for every feature that is defined on it, e.g. A=B, where
      * A will be the annotation's key and B will be the annotation's value.
      */
-    private void processFeatsField(List<SToken> sTokens, List<JsonObject> tokens) {
+    void processFeatsField(SentenceStage stage, List<Node> sTokens, List<JsonObject> tokens) {
         for (int i = 0; i < sTokens.size(); i++) {
             JsonValue jsonFeatsVal = tokens.get(i).asObject().get("feats");
             if (jsonFeatsVal == null || jsonFeatsVal.isNull()) {
                 continue;
             }
 
-            SToken sToken = sTokens.get(i);
-            for (String feat : jsonFeatsVal.asString().split("\\|")) {
-                String[] pieces = feat.split("=");
-                annotateNode(sToken, pieces[0], pieces[1]);
-            }
+            annotateFeatureList(stage, sTokens.get(i), jsonFeatsVal.asString());
         }
     }
 
+    /**
+     * Annotates the token for every A=B pair in a |-separated list like FEATS or MISC.
+     * See {@link FeatureList} for how odd entries are handled.
+     */
+    static void annotateFeatureList(SentenceStage stage, Node sToken, String features) {
+        FeatureList.of(features).annotate(stage, sToken);
+    }
+
     /**
      * Add an SPointingRelation for each dependency. The root dependency is ignored by SALT convention.
+     * @param edeps every token's parsed "edeps", see {@link EnhancedDeps#parseAll}
      * @return a list of CONLLU ID strings, parallel to the sTokens list in index, that if non-null indicates
      *         the ID of the parent of a relation pointing to the sToken at that index, if there was any.
      *         We need this later to avoid duplicating relations.
      */
-    private List<String> processHeadAndDeprelField(SDocumentGraph doc, String sentenceId, Map<String, SToken> id2token,
-                                                    List<SToken> sTokens, List<JsonObject> tokens) {
+    List<String> processHeadAndDeprelField(SentenceStage stage, String sentenceId, TokenTable id2token,
+                                           List<Node> sTokens, List<JsonObject> tokens, EnhancedDeps[] edeps) {
         List<String> headIds = new ArrayList<>();
         for (int i = 0; i < sTokens.size(); i++) {
             JsonObject tokenObj = tokens.get(i).asObject();
-            JsonValue jsonHeadVal = tokenObj.get("head");
-            JsonValue jsonDeprelVal = tokenObj.get("deprel");
-            if (jsonHeadVal == null || jsonHeadVal.isNull()
-                    || jsonDeprelVal == null || jsonDeprelVal.isNull()
-                    // root element, ignore because it is by convention not represented in SALT
-                    || (jsonHeadVal.isNumber() && jsonHeadVal.asDouble() == 0)
-            ) {
-                headIds.add(null);
-                continue;
-            }
-
-            String headIndex = Integer.toString(jsonHeadVal.asInt());
-            SToken child = sTokens.get(i);
-            SToken head = id2token.get(headIndex);
-
-            // model a syntactic dependency as an SPointingRelation going from head to child
-            SPointingRelation rel = SaltFactory.createSPointingRelation();
-            rel.setType("ud");
-            rel.setId(sentenceId + "_dep_" + headIndex + "-ud->" + i);
-            rel.setSource(head);
-            rel.setTarget(child);
-
-            // annotate if not in edeps
-            String edepsEquiv = Double.toString(jsonHeadVal.asDouble());
-            if (edepsEquiv.endsWith(".0")) {
-                edepsEquiv = edepsEquiv.substring(0, edepsEquiv.length() - 2);
-            }
-            edepsEquiv += ":" + jsonDeprelVal.asString();
-            String edepsString = tokenObj.get("edeps").asString();
-            if (!edepsString.contains(edepsEquiv)) {
-                SAnnotation notInEdepsAnn = SaltFactory.createSAnnotation();
-                notInEdepsAnn.setName("in_edeps");
-                notInEdepsAnn.setValue("no");
-                rel.addAnnotation(notInEdepsAnn);
-            }
-
-            // annotate the edge with deprel
-            SAnnotation deprelAnn = SaltFactory.createSAnnotation();
-            deprelAnn.setName("deprel");
-            deprelAnn.setValue(jsonDeprelVal.asString());
-            rel.addAnnotation(deprelAnn);
-            doc.addRelation(rel);
-
-            // keep track of the head we processed so we can only add any further heads later on
-            headIds.add(Integer.toString(jsonHeadVal.asInt()));
+            headIds.add(addHeadRelation(stage, sentenceId, id2token, i, sTokens.get(i),
+                    tokenObj.get("head"), tokenObj.get("deprel"), edeps[i]));
         }
         return headIds;
     }
 
     /**
-     * Recursive function that checks if there's a cycle between two nodes.
-     * @param start The node we started from.
-     * @param current The node we are currently traversing.
-     * @return true iff a cycle exists between start and current
+     * processHeadAndDeprelField for a single token.
+     * @param i the token's index in the sentence
+     * @return the CONLLU ID of the token's head if we added a relation from it, else null
      */
-    private boolean cycleCheck(SNode start, SNode current) {
-        if (current == null) {
-            return false;
+    static String addHeadRelation(SentenceStage stage, String sentenceId, TokenTable id2token, int i, Node child,
+                                  JsonValue jsonHeadVal, JsonValue jsonDeprelVal, EnhancedDeps edeps) {
+        if (jsonHeadVal == null || jsonHeadVal.isNull()
+                || jsonDeprelVal == null || jsonDeprelVal.isNull()) {
+            return null;
         }
-        for (SRelation childRel : current.getOutRelations()) {
-            SNode next = (SNode) childRel.getTarget();
-            if (next == start || cycleCheck(start, next)) {
-                return true;
-            }
+        // JsonNumber keeps small integers as ints, so this doesn't parse anything
+        int headId = jsonHeadVal.asInt();
+        if (headId == 0) {
+            // root element, ignore because it is by convention not represented in SALT
+            return null;
         }
-        return false;
+
+        String headIndex = Integer.toString(headId);
+        Node head = id2token.get(headId);
+
+        // model a syntactic dependency as an SPointingRelation going from head to child
+        Relation rel = stage.createPointingRelation("ud", head, child);
+        rel.setId(sentenceId + "_dep_" + headIndex + "-ud->" + i);
+
+        // annotate if not in edeps
+        if (!edeps.contains(headId, jsonDeprelVal.asString())) {
+            rel.annotate("in_edeps", "no");
+        }
+
+        // annotate the edge with deprel
+        rel.annotate("deprel", jsonDeprelVal.asString());
+        stage.addRelation(rel);
+
+        // keep track of the head we processed so we can only add any further heads later on
+        return headIndex;
     }
 
     // caution: this is called "edeps" in the JSON, but "DEPS" in the documentation
     /**
      * Handle enhanced dependencies. Careful, the JSON field name is "edeps", but the CONLLU spec
      * refers to this column as "DEPS". We avoid processing any dependencies that were already added.
-     * @param doc
+     * @param stage
      * @param sentenceId
      * @param id2token CONLLU ID to SToken
      * @param sTokens SALT tokens
      * @param tokens JSON tokens
      * @param edepsLayer The layer containing the enhanced dependencies.
-     * @param cycleLayer The layer containing the cycle-breaking edges in the edeps layer.
+     * @param cycleLayer The layer containing the cycle-breaking edges in the edeps layer, or null to leave them out.
+     * @param edeps every token's parsed "edeps", the same ones processHeadAndDeprelField got
      * @param headIdsAlreadyProcessed A list of head IDs that will be used for each token to ignore a dependency
      *                                that has already been processed.
      */
-    private void processDepsField(SDocumentGraph doc, String sentenceId, Map<String, SToken> id2token,
-                                  List<SToken> sTokens, List<JsonObject> tokens, SLayer edepsLayer, SLayer cycleLayer,
-                                  List<String> headIdsAlreadyProcessed) {
+    void processDepsField(SentenceStage stage, String sentenceId, TokenTable id2token,
+                          List<Node> sTokens, EnhancedDeps[] edeps, SLayer edepsLayer, SLayer cycleLayer,
+                          List<String> headIdsAlreadyProcessed) {
+        // which tokens can already reach which through the "ude" edges we've added for this sentence
+        ReachabilityIndex<Node> udeReachability = new ReachabilityIndex<>();
         for (int i = 0; i < sTokens.size(); i++) {
-            JsonValue jsonDepsVal = tokens.get(i).asObject().get("edeps");
-            if (jsonDepsVal == null || jsonDepsVal.isNull()) {
+            addDepsRelations(stage, sentenceId, id2token, i, sTokens.get(i), edeps[i],
+                    headIdsAlreadyProcessed.get(i), udeReachability, edepsLayer, cycleLayer);
+        }
+    }
+
+    /**
+     * processDepsField for a single token.
+     * @param i the token's index in the sentence
+     * @param headIdAlreadyProcessed the token's head if processHeadAndDeprelField already added a relation from it
+     * @param udeReachability the sentence's "ude" edges so far. Must be shared by all of the sentence's tokens.
+     */
+    static void addDepsRelations(SentenceStage stage, String sentenceId, TokenTable id2token, int i, Node child,
+                                 EnhancedDeps edeps, String headIdAlreadyProcessed,
+                                 ReachabilityIndex<Node> udeReachability, SLayer edepsLayer, SLayer cycleLayer) {
+        for (int k = 0; k < edeps.size(); k++) {
+            // skip the dep if we've already processed it or it's a root node
+            int intHead = edeps.intHead(k);
+            if (intHead == 0 || edeps.headEquals(k, headIdAlreadyProcessed)) {
                 continue;
             }
-
-            SToken child = sTokens.get(i);
-            for (String deps : jsonDepsVal.asString().split("\\|")) {
-                String[] pieces = deps.split(":");
-
-                // skip the dep if we've already processed it or it's a root node
-                if (pieces[0].equals(headIdsAlreadyProcessed.get(i)) || pieces[0].equals("0")) {
+            String headId = edeps.head(k);
+            Node head = intHead >= 0 ? id2token.get(intHead) : id2token.get(headId);
+
+            // If we also made this type "ud", cycles could be introduced among all the
+            // SPointingRelations representing "normal" dependencies and extended dependencies.
+            // But SALT permits cycles so long as there is no cycle such that all major and
+            // minor types on the edges in the cycle are all identical.
+            // It is also for this reason that we need to check if introducing this edge
+            // would create a cycle, and if so, break the cycle by changing edge type to
+            // "udecycle". Only "ude" edges can take part in such a cycle, and they never
+            // leave the sentence, so that's all the reachability index needs to know about.
+            String edgeType;
+            if (udeReachability.wouldCloseCycle(head, child)) {
+                if (cycleLayer == null) {
+                    // the cycle layer is switched off, so leave the edge out altogether
                     continue;
                 }
-                SToken head = id2token.get(pieces[0]);
-
-                SPointingRelation rel = SaltFactory.createSPointingRelation();
-                // If we also made this type "ud", cycles could be introduced among all the
-                // SPointingRelations representing "normal" dependencies and extended dependencies.
-                // But SALT permits cycles so long as there is no cycle such that all major and
-                // minor types on the edges in the cycle are all identical.
-                // It is also for this reason that we need to check if introducing this edge
-                // would create a cycle, and if so, break the cycle by changing edge type to
-                // "udecycle".
-                String edgeType = cycleCheck(head, child) ? "udecycle" : "ude";
-                rel.setType(edgeType);
-                rel.setId(sentenceId + "_extdep_" + pieces[0] + "-" + edgeType + "->" + i);
-                rel.setSource(head);
-                rel.setTarget(child);
-
-                // annotate the edge with deprel
-                SAnnotation deprelAnn = SaltFactory.createSAnnotation();
-                deprelAnn.setName("deprel");
-                // not as simple as pieces[1]: vals might contain colons like in 5:nmod:poss|...
-                List<String> otherPieces = Arrays.asList(pieces).subList(1, pieces.length);
-                String deprelVal = String.join(":", otherPieces);
-
-                deprelAnn.setValue(deprelVal);
-                rel.addAnnotation(deprelAnn);
-                (edgeType.equals("udecycle") ? cycleLayer : edepsLayer).addRelation(rel);
+                edgeType = "udecycle";
+            } else {
+                edgeType = "ude";
+                udeReachability.addEdge(head, child);
             }
+            Relation rel = stage.createPointingRelation(edgeType, head, child);
+            rel.setId(sentenceId + "_extdep_" + headId + "-" + edgeType + "->" + i);
+
+            // annotate the edge with deprel, which may contain colons itself like in 5:nmod:poss|...
+            rel.annotate("deprel", edeps.deprel(k));
+            stage.addRelation(edgeType.equals("udecycle") ? cycleLayer : edepsLayer, rel);
         }
     }
 
     /**
      * Just like FEATS: we add an annotation for each item in the MISC list.
      */
-    private void processMiscField(List<SToken> sTokens, List<JsonObject> tokens) {
+    void processMiscField(SentenceStage stage, List<Node> sTokens, List<JsonObject> tokens) {
         for (int i = 0; i < sTokens.size(); i++) {
             JsonValue jsonMiscVal = tokens.get(i).asObject().get("misc");
             if (jsonMiscVal == null || jsonMiscVal.isNull()) {
                 continue;
             }
 
-            SToken sToken = sTokens.get(i);
-            for (String misc : jsonMiscVal.asString().split("\\|")) {
-                String[] pieces = misc.split("=");
-                annotateNode(sToken, pieces[0], pieces[1]);
-            }
+            annotateFeatureList(stage, sTokens.get(i), jsonMiscVal.asString());
         }
     }
 
     /**
      * For use with SMWE and WMWE fields. Creates an SSpan for every {S,W}MWE.
-     * @param doc
+     * @param stage
      * @param sentenceId
      * @param sTokens
      * @param tokens
      * @param strong set to false if using for WMWE
-     * @returns A mapping from String to MWE span, which we need to annotate later on
+     * @returns The MWEs and their spans, which we need to annotate later on
      */
-    private Map<Integer, SSpan> processMWEField(SDocumentGraph doc, String sentenceId,
-                                 List<SToken> sTokens, List<JsonObject> tokens, boolean strong) {
-        // we'll return this at the end
-        Map<Integer, SSpan> id2mwe = new HashMap<>();
-        // maps strong multiword expression ID to list of token IDs that are a part of it, both 1-indexed.
-        Map<Integer, List<Integer>> mwes = new HashMap<>();
+    MweGroups processMWEField(SentenceStage stage, String sentenceId,
+                              List<Node> sTokens, List<JsonObject> tokens, boolean strong) {
+        MweGroups mwes = new MweGroups(sentenceId, strong, tokens.size());
 
-        // populate the map by reading the json
+        // group the tokens by MWE by reading the json
         for (int i = 0; i < tokens.size(); i++) {
             JsonObject token = tokens.get(i);
-            JsonValue mweVal = token.get(strong ? "smwe" : "wmwe");
-            if (mweVal == null || mweVal.isNull() || !mweVal.isArray()) {
-                continue;
-            }
-
-            // the second part of this array tells us the order of this word in the MWE, but this is useless
-            // for us, so ignore it
-            int mweId = mweVal.asArray().get(0).asInt();
-
-            // prepare the list if this is the first time we've seen this mwe id
-            if (!mwes.containsKey(mweId)) {
-                mwes.put(mweId, new ArrayList<>());
-            }
-            mwes.get(mweId).add(i + 1);
+            mwes.addToken(i, token.get(strong ? "smwe" : "wmwe"));
         }
-
-        // ensure that token IDs increase monotonically, as they ought to
-        for (Integer mweId  : mwes.keySet()) {
-            List<Integer> tokenIds = mwes.get(mweId);
-            for (int i = 0; i < tokenIds.size() - 1; i++) {
-                if (tokenIds.get(i) >= tokenIds.get(i + 1)) {
-                    throw new RuntimeException((strong ? "SMWE " : "WMWE ") + mweId
-                            + " in sentence " + sentenceId
-                            + " has non-monotonically increasing token indexes.");
-                }
-            }
-        }
-
-        // turn the map into a bunch of spans
-        for (int mweId : mwes.keySet()) {
-            List<SToken> mweTokens = new ArrayList<>();
-            for (int tokenId : mwes.get(mweId)) {
-                // subtract 1 because tokenIds are 1-indexed
-                mweTokens.add(sTokens.get(tokenId - 1));
-            }
-
-            SSpan mweSpan = doc.createSpan(mweTokens);
-            mweSpan.setName(sentenceId + (strong ? "_SMWE_" : "_WMWE_") + mweId);
-            id2mwe.put(mweId, mweSpan);
-        }
-        return id2mwe;
+        mwes.createSpans(stage, sTokens);
+        return mwes;
     }
 
     /**
@@ -604,35 +699,30 @@ public class StreusleMapper extends PepperMapperImpl {
      * where each property of that object corresponds to a CONLLULEX column. We will make
      * a separate function for each column to build up the sentence structure in a
      * programmatically decoupled way.
-     * @param doc ref to the SDocumentGraph
+     * Everything is done to the document graph through a {@link SentenceStage}: a recording one,
+     * which the caller then merges into the graph, lets sentences be processed on any thread.
+     * @param stage where the sentence's graph operations go, and what's returned
      * @param edepsLayer The layer containing the enhanced dependencies.
      * @param cycleLayer The layer containing the cycle-breaking edges in the edeps layer.
      * @param govobj The layer containing govobj info (see govobj.py in nert-nlp/streusle)
-     * @param primaryText the STextualDS object anchoring all our annotations
      * @param sentence the JSON piece corresponding to this sentence, which is a JSON object
      *                 with fields "sent_id", "streusle_sent_id", "mwe", "toks", "etoks",
      *                 "swes", "smwes", and "wmwes".
+     * @param sOffset where in the document's STextualDS this sentence begins
+     * @return the stage
      */
-    private void processSentence(SDocumentGraph doc, SLayer edepsLayer, SLayer cycleLayer,
-                                 SLayer govobj, STextualDS primaryText, JsonObject sentence) {
+    SentenceStage processSentence(SentenceStage stage, SLayer edepsLayer, SLayer cycleLayer, SLayer govobj,
+                                  JsonObject sentence, int sOffset) {
         /*\
         |*| Setup
         \*/
+        StreusleImporterProperties properties = getStreusleProperties();
         String sentenceId = sentence.get("sent_id").asString();
         // get the sentence text, e.g. "My 8 year old daughter loves this place."
         String sentenceString = sentence.get("text").asString();
         // get the mwe text, e.g. "They eventually turned_ it _over to a collection_agency and now will not even discuss~the~matter ."
         String sentMwe = sentence.get("mwe").asString();
 
-        // find where the sentence begins in the document
-        int sOffset = primaryText.getText().indexOf(sentenceString);
-        if (sOffset < 0) {
-            throw new UnsupportedOperationException(
-                    "Couldn't find the sentence `" + sentenceString
-                            + " in the document `" + primaryText.getText() + "`"
-            );
-        }
-
         // get the list of token dicts, e.g. [{"#": 1, "word": "My", ...}, {"#": 2, "word": "8", ...}, ...]
         JsonArray tokenArray = sentence.get("toks").asArray();
         List<JsonObject> tokens = new ArrayList<>();
@@ -643,54 +733,101 @@ public class StreusleMapper extends PepperMapperImpl {
         /*\
         |*| Columns 1-2
         \*/
-        // make the SToken objects by looping over the array--we'll take care of annotations in other loops
-        // would maybe be marginally more performant to process annotations all in one loop, but I will
-        // prioritize clarity of code over performance. This handles columns 1 (ID) and 2 (FORM).
-        List<SToken> sTokens = processWordField(doc, sentenceId, tokens, primaryText, sentenceString, sOffset);
-        Map<String, SToken> id2token = processIdField(sTokens, tokens);
+        // make the SToken objects by looping over the array. This handles columns 1 (ID) and 2 (FORM); the
+        // other columns are annotated below, either one column per loop by the process*Field methods (the
+        // reference implementation) or all in one loop by TokenColumnPass (the fused one, the default).
+        // GraphEquivalenceTest checks that both build the same graph.
+        List<Node> sTokens = processWordField(stage, sentenceId, tokens, sentenceString, sOffset);
+        TokenTable id2token = processIdField(stage, sTokens, tokens);
         // ellipsis toks are stored separately in "etoks"--here, we get them into sTokens and tokens
-        mergeEtoks(doc, sentenceId, sTokens, tokens, sentence, primaryText, sOffset, id2token);
+        mergeEtoks(stage, sentenceId, sTokens, tokens, sentence, sOffset, id2token);
 
         // with our final set of tokens, create a sentence span and annotate it with our ID
-        SSpan sentenceSpan = doc.createSpan(sTokens);
-        annotateNode(sentenceSpan, "sent_id", sentenceId);
-        annotateNode(sentenceSpan, "sent_mwe", sentMwe);
+        Node sentenceSpan = stage.createSpan(sTokens);
+        stage.annotate(sentenceSpan, "sent_id", sentenceId);
+        if (properties.isSentMwe()) {
+            stage.annotate(sentenceSpan, "sent_mwe", sentMwe);
+        }
         // consistency with the CONLL module: https://github.com/korpling/pepperModules-CoNLLModules/blob/154f84f0bd6cd6dd4bee8f066aad4d118b5cabe3/src/main/java/org/corpus_tools/peppermodules/conll/Conll2SaltMapper.java#L565
-        annotateNode(sentenceSpan, "CAT", "S");
-
-        /*\
-        |*| Columns 3-10
-        \*/
-        // column 3, LEMMA
-        processSimpleStringField(sTokens, tokens, "lemma", "lemma");
-        // column 4, UPOS
-        processSimpleStringField(sTokens, tokens, "upos", "upos");
-        // column 5, XPOS
-        processSimpleStringField(sTokens, tokens, "xpos", "pos");
-        processSimpleStringFieldAsSpanAnnotation(doc, sTokens, tokens, "xpos", "pos");
-        // column 6, FEATS
-        processFeatsField(sTokens, tokens);
-        // columns 7 and 8, HEAD and DEPREL
-        List<String> headIdsAlreadyProcessed = processHeadAndDeprelField(doc, sentenceId, id2token, sTokens, tokens);
-        // column 9, DEPS
-        processDepsField(doc, sentenceId, id2token, sTokens, tokens, edepsLayer, cycleLayer, headIdsAlreadyProcessed);
-        // column 10, MISC
-        processMiscField(sTokens, tokens);
+        stage.annotate(sentenceSpan, "CAT", "S");
+
+        // pos, lextag and the swe annotations all go on single-token spans
+        TokenSpans tokenSpans = new TokenSpans(properties.isMergeTokenSpans());
+        MweGroups id2smwe;
+        MweGroups id2wmwe;
+        if (properties.isFusedColumns()) {
+            // the same as the else branch, but in a single pass over the tokens
+            TokenColumnPass columnPass = new TokenColumnPass(stage, sentenceId, id2token, tokenSpans, properties,
+                    edepsLayer, cycleLayer);
+            columnPass.run(sTokens, tokens);
+            id2smwe = columnPass.getSmweSpans();
+            id2wmwe = columnPass.getWmweSpans();
+        } else {
+            /*\
+            |*| Columns 3-10
+            \*/
+            // column 3, LEMMA
+            processSimpleStringField(stage, sTokens, tokens, "lemma", "lemma");
+            // column 4, UPOS
+            processSimpleStringField(stage, sTokens, tokens, "upos", "upos");
+            // column 5, XPOS
+            if (properties.isTokenPos()) {
+                processSimpleStringField(stage, sTokens, tokens, "xpos", "pos");
+            }
+            if (properties.isSpanPos()) {
+                processSimpleStringFieldAsSpanAnnotation(stage, sTokens, tokens, "xpos", "pos", tokenSpans);
+            }
+            // column 6, FEATS
+            if (properties.isFeats()) {
+                processFeatsField(stage, sTokens, tokens);
+            }
+            // columns 7 and 8, HEAD and DEPREL
+            boolean dependencies = properties.isDependencies();
+            EnhancedDeps[] edeps = dependencies || edepsLayer != null ? EnhancedDeps.parseAll(tokens) : null;
+            List<String> headIdsAlreadyProcessed = dependencies
+                    ? processHeadAndDeprelField(stage, sentenceId, id2token, sTokens, tokens, edeps)
+                    : Collections.nCopies(sTokens.size(), null);
+            // column 9, DEPS
+            if (edepsLayer != null) {
+                processDepsField(stage, sentenceId, id2token, sTokens, edeps, edepsLayer, cycleLayer,
+                        headIdsAlreadyProcessed);
+            }
+            // column 10, MISC
+            if (properties.isMisc()) {
+                processMiscField(stage, sTokens, tokens);
+            }
 
-        /*\
-        |*| Columns 11-19
-        \*/
-        // do nothing for column 17, currently not used
-        // do nothing for column 18, WLEMMA: redundant with other info
-        // SMWE (11), WMWE (16), and LEXTAG (19) are stored directly on "toks", handle them:
-        Map<Integer, SSpan> id2smwe = processMWEField(doc, sentenceId, sTokens, tokens, true);
-        Map<Integer, SSpan> id2wmwe = processMWEField(doc, sentenceId, sTokens, tokens, false);
-        processLextag(doc, sTokens, tokens);
+            /*\
+            |*| Columns 11-19
+            \*/
+            // do nothing for column 17, currently not used
+            // do nothing for column 18, WLEMMA: redundant with other info
+            // SMWE (11), WMWE (16), and LEXTAG (19) are stored directly on "toks", handle them:
+            if (properties.isMwes()) {
+                id2smwe = processMWEField(stage, sentenceId, sTokens, tokens, true);
+                id2wmwe = processMWEField(stage, sentenceId, sTokens, tokens, false);
+            } else {
+                id2smwe = id2wmwe = null;
+            }
+            if (properties.isLextag()) {
+                processLextag(stage, sTokens, tokens, tokenSpans);
+            }
+        }
 
         // LEXCAT (12), SS (14), SS2 (15), LEXLEMMA (13) are stored separately under "mwes", "smwes", and "wmwes"
-        processSwes(doc, sentence, id2token, govobj);
-        processSmwes(doc, sentence, id2smwe, id2token, govobj);
-        processWmwes(doc, sentence, id2wmwe, id2token, govobj);
+        // (and so are the heuristic relations). Nothing to do here if both are switched off.
+        boolean supersenses = properties.isSupersenses();
+        if (supersenses || govobj != null) {
+            processSwes(stage, sentence, id2token, supersenses, govobj, tokenSpans);
+            // without MWE spans, there's nothing to annotate
+            MweGroups smweSpans = supersenses ? id2smwe : null;
+            MweGroups wmweSpans = supersenses ? id2wmwe : null;
+            if (smweSpans != null || govobj != null) {
+                processSmwes(stage, sentence, smweSpans, id2token, govobj);
+                processWmwes(stage, sentence, wmweSpans, id2token, govobj);
+            }
+        }
+        return stage;
     }
 
     /**
@@ -699,7 +836,7 @@ public class StreusleMapper extends PepperMapperImpl {
      * @param doc A reference to the SDocumentGraph
      * @param jsonRoot The root of the raw parsed JSON
      */
-    private void processDocument(SDocumentGraph doc, JsonValue jsonRoot) {
+    void processDocument(SDocumentGraph doc, JsonValue jsonRoot) {
         // note that throughout the com.eclipsesource.json package's API, a JsonValue is returned, and
         // we need to call an `.asXxxx` function to attempt to parse it and cast it as a subtype. If
         // this downcasting fails (e.g., we call .asArray() on a JsonValue that is actually a JsonString
@@ -715,26 +852,161 @@ public class StreusleMapper extends PepperMapperImpl {
             sentences.add(sentence);
         }
 
-        // make the STextualDS
-        STextualDS primaryText = buildTextualDS(doc, sentences);
+        // make the STextualDS, remembering where each sentence begins in it
+        int[] sentenceOffsets = new int[sentences.size()];
+        STextualDS primaryText = buildTextualDS(doc, sentences, sentenceOffsets);
 
-        // three more layers: enhanced dependencies, a cycle-breaking layer, and a govobj layer
-        SLayer edeps = SaltFactory.createSLayer();
-        edeps.setName("edeps");
-        SLayer cycle = SaltFactory.createSLayer();
-        cycle.setName("cycle");
-        SLayer govobj = SaltFactory.createSLayer();
-        govobj.setName("govobj");
+        // three more layers: enhanced dependencies, a cycle-breaking layer, and a govobj layer,
+        // unless they've been switched off
+        SLayer edeps = createLayer("edeps", getStreusleProperties().isEdepsLayer());
+        SLayer cycle = createLayer("cycle", getStreusleProperties().isEdepsLayer()
+                && getStreusleProperties().isCycleLayer());
+        SLayer govobj = createLayer("govobj", getStreusleProperties().isGovobjLayer());
 
         // process each sentence independently
-        for (JsonObject sentence : sentences) {
-            processSentence(doc, edeps, cycle, govobj, primaryText, sentence);
+        int parallelism = getStreusleProperties().getParallelism();
+        if (parallelism > 1) {
+            processSentencesInParallel(doc, edeps, cycle, govobj, primaryText, sentences, sentenceOffsets, parallelism);
+        } else {
+            // one thread: build the graph directly instead of recording and replaying every operation
+            SentenceStage direct = new SentenceStage(doc, primaryText);
+            for (int i = 0; i < sentences.size(); i++) {
+                processSentence(direct, edeps, cycle, govobj, sentences.get(i), sentenceOffsets[i]);
+            }
         }
 
-        // add the layer after we're done adding rels to it
-        doc.addLayer(edeps);
-        doc.addLayer(cycle);
-        doc.addLayer(govobj);
+        // add the layers after we're done with them. Their relations are in the graph already, see
+        // SentenceStage.addRelation
+        addLayers(doc, edeps, cycle, govobj);
+    }
+
+    /**
+     * @return a layer with this name, or null if it's switched off
+     */
+    private static SLayer createLayer(String name, boolean enabled) {
+        if (!enabled) {
+            return null;
+        }
+        SLayer layer = SaltFactory.createSLayer();
+        layer.setName(name);
+        return layer;
+    }
+
+    private static void addLayers(SDocumentGraph doc, SLayer... layers) {
+        for (SLayer layer : layers) {
+            if (layer != null) {
+                doc.addLayer(layer);
+            }
+        }
+    }
+
+    /**
+     * Sentences don't depend on each other, so we can stage them all at once on a ForkJoinPool.
+     * Merging has to happen one sentence at a time and in document order, though: Salt graphs
+     * aren't thread safe, and the order we add nodes in determines their IDs. So we merge each
+     * sentence as soon as it and every sentence before it is ready, and end up with exactly the
+     * graph the sequential loop in processDocument would have built.
+     * <p>
+     * Within an import, every document runs on the importer's one pool (see {@link #setSentencePool}).
+     * Only a mapper used on its own, without an importer, makes a pool just for this document.
+     */
+    private void processSentencesInParallel(SDocumentGraph doc, SLayer edeps, SLayer cycle, SLayer govobj,
+                                            STextualDS primaryText, List<JsonObject> sentences,
+                                            int[] sentenceOffsets, int parallelism) {
+        ForkJoinPool pool = sentencePool != null ? sentencePool : new ForkJoinPool(parallelism);
+        try {
+            List<ForkJoinTask<SentenceStage>> stages = new ArrayList<>();
+            for (int i = 0; i < sentences.size(); i++) {
+                JsonObject sentence = sentences.get(i);
+                int sOffset = sentenceOffsets[i];
+                stages.add(pool.submit(() -> processSentence(new SentenceStage(), edeps, cycle, govobj, sentence, sOffset)));
+            }
+            for (ForkJoinTask<SentenceStage> stage : stages) {
+                // join() rethrows whatever processSentence threw, e.g. an UnsupportedOperationException
+                stage.join().merge(doc, primaryText);
+            }
+        } finally {
+            if (pool != sentencePool) {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Streaming counterpart to processDocument. Instead of parsing the whole document into a JsonArray
+     * first, we let a {@link StreusleSentenceHandler} hand us one sentence at a time as soon as the
+     * parser has read it, and forget about it once it has been mapped. The graph we build is the same:
+     * the only difference is that we can't know the document text up front, so we build it up as we go
+     * (we already know each sentence's offset since we're appending it ourselves) and put it on the
+     * STextualDS at the very end.
+     * @param doc A reference to the SDocumentGraph
+     * @param input The raw, UTF-8 encoded STREUSLE JSON
+     */
+    private void processDocumentStreaming(SDocumentGraph doc, ByteBuffer input) {
+        STextualDS primaryText = doc.createTextualDS("");
+        StringBuilder documentText = new StringBuilder();
+
+        SLayer edeps = createLayer("edeps", getStreusleProperties().isEdepsLayer());
+        SLayer cycle = createLayer("cycle", getStreusleProperties().isEdepsLayer()
+                && getStreusleProperties().isCycleLayer());
+        SLayer govobj = createLayer("govobj", getStreusleProperties().isGovobjLayer());
+
+        SentenceStage direct = new SentenceStage(doc, primaryText);
+        StreusleSentenceHandler handler = new StreusleSentenceHandler(sentence -> {
+            // same text layout as buildTextualDS
+            int sOffset = documentText.length();
+            documentText.append(sentence.get("text").asString());
+            documentText.append(" ");
+            processSentence(direct, edeps, cycle, govobj, sentence, sOffset);
+        });
+        JsonByteParser parser = new JsonByteParser(handler);
+        parser.setNameTable(FIELD_NAMES);
+        parser.parse(input);
+        primaryText.setText(documentText.toString());
+
+        addLayers(doc, edeps, cycle, govobj);
+    }
+
+    /**
+     * The document's JSON, as UTF-8 bytes for the JSON parser to read directly, without a separate charset
+     * decoding pass (and without FileReader's platform default charset). Virtual documents (see
+     * {@link VirtualDocuments}) are read out of the corpus file, anything else is memory-mapped whole.
+     * The mapping stays valid after the channel is closed.
+     */
+    private static ByteBuffer mapFile(URI resource) throws IOException {
+        if (resource.hasFragment()) {
+            return VirtualDocuments.read(Paths.get(resource.trimFragment().toFileString()), resource.fragment());
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(resource.toFileString()), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Everything besides the JSON that decides what graph we build, for {@link DocumentCache#key}.
+     * Any property that changes the graph belongs in StreusleImporterProperties.GRAPH_PROPERTIES.
+     * The document's ID is in there too: Salt puts it in every node and relation ID, so the same JSON
+     * under another corpus or document name doesn't give the same graph.
+     */
+    private String cacheSettings() {
+        StringBuilder settings = new StringBuilder();
+        settings.append("document=").append(getDocument().getId()).append(';');
+        for (String name : StreusleImporterProperties.GRAPH_PROPERTIES) {
+            settings.append(name).append('=').append(getProperties().getProperty(name).getValue()).append(';');
+        }
+        return settings.toString();
+    }
+
+    private StreusleImporterProperties getStreusleProperties() {
+        return (StreusleImporterProperties) getProperties();
+    }
+
+    /**
+     * @param sentencePool the pool to stage sentences on when parallelism is above 1, shared with the
+     *                     importer's other mappers. The importer owns it and shuts it down.
+     */
+    void setSentencePool(ForkJoinPool sentencePool) {
+        this.sentencePool = sentencePool;
     }
 
     /**
@@ -746,21 +1018,50 @@ public class StreusleMapper extends PepperMapperImpl {
         URI resource = getResourceURI();
         logger.debug("Importing the file {}.", resource);
 
-        // Attempt to parse the file at that URI as JSON
-        JsonValue json;
+        ByteBuffer input;
         try {
-            json = Json.parse(new FileReader(resource.toFileString()));
+            input = mapFile(resource);
         } catch (IOException e) {
             return DOCUMENT_STATUS.FAILED;
         }
 
+        // If we've mapped exactly this document before, the graph is in the cache
+        DocumentCache cache = null;
+        String cacheKey = null;
+        if (getStreusleProperties().getCacheDirectory() != null) {
+            cache = new DocumentCache(Paths.get(getStreusleProperties().getCacheDirectory()));
+            cacheKey = cache.key(input, cacheSettings());
+            SDocumentGraph cached = cache.load(cacheKey);
+            if (cached != null) {
+                logger.debug("Using the cached graph for {}.", resource);
+                getDocument().setDocumentGraph(cached);
+                return DOCUMENT_STATUS.COMPLETED;
+            }
+        }
+
         // Pepper has already prepared an SDocument object. Grab it and init it
         SDocument d = getDocument();
         SDocumentGraph dg = SaltFactory.createSDocumentGraph();
         d.setDocumentGraph(dg);
 
-        // Begin processing the JSON's contents
-        processDocument(dg, json);
+        if (getStreusleProperties().isStreaming()) {
+            // In streaming mode, parsing and processing happen together
+            processDocumentStreaming(dg, input);
+        } else {
+            // Attempt to parse the file at that URI as JSON
+            JsonValue json = parse(input);
+
+            // Begin processing the JSON's contents
+            processDocument(dg, json);
+        }
+
+        if (cache != null) {
+            try {
+                cache.save(cacheKey, dg);
+            } catch (IOException e) {
+                logger.warn("Could not cache the graph for {}.", resource, e);
+            }
+        }
         return DOCUMENT_STATUS.COMPLETED;
     }
 }
@@ -0,0 +1,101 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonRecordHandler;
+
+/**
+ * A JsonHandler for document-level STREUSLE JSON that hands each sentence off as soon as the parser
+ * is done with it instead of building a JsonArray for the whole document. The top-level array is
+ * never materialized, so only the sentence currently being parsed is ever resident. Tokens and lexical
+ * units are JsonRecords, just like with {@link StreusleMapper#parse}.
+ */
+class StreusleSentenceHandler extends JsonRecordHandler {
+
+    /**
+     * Receives each sentence object, in document order.
+     */
+    interface SentenceListener {
+        void sentence(JsonObject sentence);
+    }
+
+    private final SentenceListener listener;
+    // 0 outside the document, 1 inside the top-level array, 2 inside a sentence, and so on
+    private int depth = 0;
+
+    StreusleSentenceHandler(SentenceListener listener) {
+        super(StreusleMapper.TOKEN, StreusleMapper.LEXICAL_UNIT);
+        this.listener = listener;
+    }
+
+    // the document has to be an array of sentences, anything else at the top level is a ParseException
+    private void checkNotTopLevel() {
+        if (depth == 0) {
+            throw error("Expected a JSON array of sentences");
+        }
+    }
+
+    @Override
+    public void startNull() {
+        checkNotTopLevel();
+        super.startNull();
+    }
+
+    @Override
+    public void startBoolean() {
+        checkNotTopLevel();
+        super.startBoolean();
+    }
+
+    @Override
+    public void startString() {
+        checkNotTopLevel();
+        super.startString();
+    }
+
+    @Override
+    public void startNumber() {
+        checkNotTopLevel();
+        super.startNumber();
+    }
+
+    @Override
+    public JsonArray startArray() {
+        // don't make an array for the top level: it would keep every sentence alive
+        return depth++ == 0 ? null : super.startArray();
+    }
+
+    @Override
+    public void endArray(JsonArray array) {
+        depth--;
+        if (array != null) {
+            super.endArray(array);
+        }
+    }
+
+    @Override
+    public void endArrayValue(JsonArray array) {
+        if (array != null) {
+            super.endArrayValue(array);
+            return;
+        }
+        // the parser just finished a member of the top-level array, i.e. a whole sentence.
+        // asObject() throws an UnsupportedOperationException for anything else, just like
+        // processDocument's asArray()/asObject() calls do.
+        listener.sentence(value.asObject());
+        value = null;
+    }
+
+    @Override
+    public JsonObject startObject() {
+        checkNotTopLevel();
+        depth++;
+        return super.startObject();
+    }
+
+    @Override
+    public void endObject(JsonObject object) {
+        depth--;
+        super.endObject(object);
+    }
+}
@@ -0,0 +1,39 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One copy of every annotation name and value, shared by every document we import. Nearly all of them
+ * come from small vocabularies (UPOS and XPOS tags, features, lexcats, supersenses, deprels, and even
+ * lemmas repeat a lot), so without this a full STREUSLE graph holds many thousands of copies of "NOUN".
+ * Long strings (sentence text and the like) are almost never repeated and are left alone, and the pool
+ * stops growing once it holds {@link #MAX_SIZE} strings so that a strange corpus can't make it grow
+ * without bound. Safe to use from any thread, since Pepper maps documents in parallel.
+ */
+final class StringPool {
+    static final int MAX_LENGTH = 64;
+    static final int MAX_SIZE = 1 << 18;
+
+    private static final ConcurrentHashMap<String, String> POOL = new ConcurrentHashMap<>();
+
+    private StringPool() {
+    }
+
+    /**
+     * @return the pooled copy of string, or string itself if it's too long to pool (or the pool is full)
+     */
+    static String intern(String string) {
+        if (string == null || string.length() > MAX_LENGTH) {
+            return string;
+        }
+        String pooled = POOL.get(string);
+        if (pooled != null) {
+            return pooled;
+        }
+        if (POOL.size() >= MAX_SIZE) {
+            return string;
+        }
+        pooled = POOL.putIfAbsent(string, string);
+        return pooled == null ? string : pooled;
+    }
+}
@@ -0,0 +1,235 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import java.util.*;
+
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonRecord;
+import com.eclipsesource.json.JsonValue;
+import com.eclipsesource.json.RecordSchema;
+import edu.georgetown.uis.corpling.pepper.streusle.SentenceStage.Node;
+import org.corpus_tools.salt.core.SLayer;
+
+/**
+ * Handles the columns StreusleMapper.processSentence would otherwise hand to one method each
+ * (LEMMA through MISC, SMWE, WMWE and LEXTAG) in a single pass over the sentence's tokens.
+ * The per-column methods loop over every token once per column and look their field up with
+ * JsonObject.get each time. Here we go through each token's members once, put each value we
+ * care about in its slot, and then run every column in the plan on that token.
+ * Each column stages its operations separately, and the columns are appended to the sentence's
+ * stage in plan order at the end. That way the operations come out in exactly the order the
+ * per-column methods would have staged them, so the graph (IDs included) is the same.
+ */
+class TokenColumnPass {
+    // the token fields the columns read, as slots of StreusleMapper.TOKEN
+    private static final RecordSchema TOKEN = StreusleMapper.TOKEN;
+    private static final int LEMMA = TOKEN.indexOf("lemma"), UPOS = TOKEN.indexOf("upos"),
+            XPOS = TOKEN.indexOf("xpos"), FEATS = TOKEN.indexOf("feats"), HEAD = TOKEN.indexOf("head"),
+            DEPREL = TOKEN.indexOf("deprel"), EDEPS = TOKEN.indexOf("edeps"), MISC = TOKEN.indexOf("misc"),
+            SMWE = TOKEN.indexOf("smwe"), WMWE = TOKEN.indexOf("wmwe"), LEXTAG = TOKEN.indexOf("lextag");
+
+    private interface Column {
+        void token(TokenColumnPass pass, SentenceStage out, int i, Node sToken, JsonValue[] fields);
+    }
+
+    // one column per per-column method call in processSentence, in the same order
+    private static final Column LEMMA_COLUMN =
+            (pass, out, i, sToken, fields) -> annotate(out, sToken, fields[LEMMA], "lemma");
+    private static final Column UPOS_COLUMN =
+            (pass, out, i, sToken, fields) -> annotate(out, sToken, fields[UPOS], "upos");
+    // XPOS, once on the token and once on a span
+    private static final Column TOKEN_POS_COLUMN =
+            (pass, out, i, sToken, fields) -> annotate(out, sToken, fields[XPOS], "pos");
+    private static final Column SPAN_POS_COLUMN =
+            (pass, out, i, sToken, fields) -> pass.annotateSpan(out, sToken, fields[XPOS], "pos");
+    private static final Column FEATS_COLUMN = (pass, out, i, sToken, fields) -> {
+        if (!isNull(fields[FEATS])) {
+            StreusleMapper.annotateFeatureList(out, sToken, fields[FEATS].asString());
+        }
+    };
+    // HEAD and DEPREL
+    private static final Column DEPENDENCY_COLUMN = (pass, out, i, sToken, fields) ->
+            pass.headIds[i] = StreusleMapper.addHeadRelation(out, pass.sentenceId, pass.id2token, i, sToken,
+                    fields[HEAD], fields[DEPREL], pass.edepsOf(i, fields));
+    private static final Column DEPS_COLUMN = (pass, out, i, sToken, fields) ->
+            StreusleMapper.addDepsRelations(out, pass.sentenceId, pass.id2token, i, sToken, pass.edepsOf(i, fields),
+                    pass.headIds[i], pass.udeReachability, pass.edepsLayer, pass.cycleLayer);
+    private static final Column MISC_COLUMN = (pass, out, i, sToken, fields) -> {
+        if (!isNull(fields[MISC])) {
+            StreusleMapper.annotateFeatureList(out, sToken, fields[MISC].asString());
+        }
+    };
+    // SMWE (11) and WMWE (16). The spans are made in run() once we've seen every token.
+    private static final Column SMWE_COLUMN = (pass, out, i, sToken, fields) -> pass.smwes.addToken(i, fields[SMWE]);
+    private static final Column WMWE_COLUMN = (pass, out, i, sToken, fields) -> pass.wmwes.addToken(i, fields[WMWE]);
+    private static final Column LEXTAG_COLUMN =
+            (pass, out, i, sToken, fields) -> pass.annotateSpan(out, sToken, fields[LEXTAG], "lextag");
+
+    /**
+     * @return the columns to run, in order. Columns that are switched off aren't in it at all, so their fields
+     *         are never even looked at.
+     */
+    private static Column[] plan(StreusleImporterProperties properties, boolean deps) {
+        List<Column> plan = new ArrayList<>();
+        // columns 3 and 4, LEMMA and UPOS
+        plan.add(LEMMA_COLUMN);
+        plan.add(UPOS_COLUMN);
+        // column 5, XPOS
+        if (properties.isTokenPos()) {
+            plan.add(TOKEN_POS_COLUMN);
+        }
+        if (properties.isSpanPos()) {
+            plan.add(SPAN_POS_COLUMN);
+        }
+        // column 6, FEATS
+        if (properties.isFeats()) {
+            plan.add(FEATS_COLUMN);
+        }
+        // columns 7 and 8, HEAD and DEPREL
+        if (properties.isDependencies()) {
+            plan.add(DEPENDENCY_COLUMN);
+        }
+        // column 9, DEPS
+        if (deps) {
+            plan.add(DEPS_COLUMN);
+        }
+        // column 10, MISC
+        if (properties.isMisc()) {
+            plan.add(MISC_COLUMN);
+        }
+        if (properties.isMwes()) {
+            plan.add(SMWE_COLUMN);
+            plan.add(WMWE_COLUMN);
+        }
+        // LEXTAG (19)
+        if (properties.isLextag()) {
+            plan.add(LEXTAG_COLUMN);
+        }
+        return plan.toArray(new Column[0]);
+    }
+
+    private final SentenceStage stage;
+    private final String sentenceId;
+    private final TokenTable id2token;
+    private final TokenSpans tokenSpans;
+    private final SLayer edepsLayer;
+    private final SLayer cycleLayer;
+
+    private final Column[] plan;
+    private final boolean mwes;
+    private String[] headIds;
+    // the edeps of token edepsToken, which the HEAD/DEPREL and DEPS columns share
+    private EnhancedDeps edeps;
+    private int edepsToken = -1;
+    private final ReachabilityIndex<Node> udeReachability = new ReachabilityIndex<>();
+    private MweGroups smwes;
+    private MweGroups wmwes;
+
+    /**
+     * @param edepsLayer where the DEPS column goes, or null to leave it out
+     * @param cycleLayer where cycle-breaking DEPS go, or null to leave them out
+     */
+    TokenColumnPass(SentenceStage stage, String sentenceId, TokenTable id2token, TokenSpans tokenSpans,
+                    StreusleImporterProperties properties, SLayer edepsLayer, SLayer cycleLayer) {
+        this.stage = stage;
+        this.sentenceId = sentenceId;
+        this.id2token = id2token;
+        this.tokenSpans = tokenSpans;
+        this.edepsLayer = edepsLayer;
+        this.cycleLayer = cycleLayer;
+        this.plan = plan(properties, edepsLayer != null);
+        this.mwes = properties.isMwes();
+    }
+
+    /**
+     * Stage every column for the sentence.
+     * @param sTokens SALT tokens, ellipsis tokens included
+     * @param tokens JSON tokens, parallel to sTokens
+     */
+    void run(List<Node> sTokens, List<JsonObject> tokens) {
+        SentenceStage[] columns = new SentenceStage[plan.length];
+        for (int c = 0; c < plan.length; c++) {
+            columns[c] = new SentenceStage();
+        }
+        headIds = new String[tokens.size()];
+        smwes = new MweGroups(sentenceId, true, tokens.size());
+        wmwes = new MweGroups(sentenceId, false, tokens.size());
+
+        JsonValue[] fields = new JsonValue[TOKEN.size()];
+        for (int i = 0; i < tokens.size(); i++) {
+            JsonObject token = tokens.get(i);
+            if (token instanceof JsonRecord && ((JsonRecord) token).getSchema() == TOKEN) {
+                // the usual case: the parser already put every field in its slot
+                JsonRecord record = (JsonRecord) token;
+                for (int slot = 0; slot < fields.length; slot++) {
+                    fields[slot] = record.get(slot);
+                }
+            } else {
+                Arrays.fill(fields, null);
+                for (JsonObject.Member member : token) {
+                    // like JsonObject.get, the last member wins if a name is repeated
+                    int slot = TOKEN.indexOf(member.getName());
+                    if (slot >= 0) {
+                        fields[slot] = member.getValue();
+                    }
+                }
+            }
+            Node sToken = sTokens.get(i);
+            for (int c = 0; c < plan.length; c++) {
+                plan[c].token(this, columns[c], i, sToken, fields);
+            }
+        }
+        for (int c = 0; c < plan.length; c++) {
+            if (plan[c] == SMWE_COLUMN) {
+                smwes.createSpans(columns[c], sTokens);
+            } else if (plan[c] == WMWE_COLUMN) {
+                wmwes.createSpans(columns[c], sTokens);
+            }
+        }
+
+        for (SentenceStage column : columns) {
+            stage.append(column);
+        }
+    }
+
+    /**
+     * @return the SMWEs and their spans, once run() is done, or null if MWEs are switched off
+     */
+    MweGroups getSmweSpans() {
+        return mwes ? smwes : null;
+    }
+
+    /**
+     * @return the WMWEs and their spans, once run() is done, or null if MWEs are switched off
+     */
+    MweGroups getWmweSpans() {
+        return mwes ? wmwes : null;
+    }
+
+    // token i's edeps, parsed once no matter how many columns ask
+    private EnhancedDeps edepsOf(int i, JsonValue[] fields) {
+        if (edepsToken != i) {
+            edeps = EnhancedDeps.parse(fields[EDEPS]);
+            edepsToken = i;
+        }
+        return edeps;
+    }
+
+    private static boolean isNull(JsonValue value) {
+        return value == null || value.isNull();
+    }
+
+    // processSimpleStringField for one token
+    private static void annotate(SentenceStage out, Node sToken, JsonValue value, String annotationName) {
+        if (!isNull(value)) {
+            out.annotate(sToken, annotationName, value.asString());
+        }
+    }
+
+    // processSimpleStringFieldAsSpanAnnotation (and processLextag) for one token
+    private void annotateSpan(SentenceStage out, Node sToken, JsonValue value, String annotationName) {
+        if (!isNull(value)) {
+            Node span = tokenSpans.spanFor(out, sToken);
+            out.annotate(span, annotationName, value.asString());
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Works out where each token of a sentence is in the sentence's text, in one pass from left to right:
+ * skip whitespace, then the token's form should be right there. MISC's SpaceAfter=No tells us whether there
+ * should have been whitespace. When the text and the tokens don't agree, we don't give up on the document:
+ * we note what went wrong in a {@link Mismatch} and carry on as best we can.
+ * <ul>
+ *     <li>If the form isn't where we expect it, we look for it further on, like StreusleMapper used to for
+ *     every token, and skip whatever text is in the way ({@link Mismatch.Kind#SKIPPED_TEXT}).</li>
+ *     <li>If it isn't anywhere further on, the token gets no text at all: it's zero-width, right where
+ *     we are ({@link Mismatch.Kind#NOT_FOUND}).</li>
+ *     <li>If there's whitespace after a token with SpaceAfter=No or none after one without it, the token
+ *     is where it should be, but we report it anyway ({@link Mismatch.Kind#SPACE_AFTER}).</li>
+ * </ul>
+ * For text that agrees with its tokens, the offsets are the same as searching for each form with
+ * indexOf from the end of the previous token.
+ */
+final class TokenOffsets {
+
+    /**
+     * Something about a token that didn't agree with the sentence text.
+     */
+    static final class Mismatch {
+        enum Kind {
+            SKIPPED_TEXT, NOT_FOUND, SPACE_AFTER
+        }
+
+        private final Kind kind;
+        private final int token;
+        private final String form;
+        private final int offset;
+
+        Mismatch(Kind kind, int token, String form, int offset) {
+            this.kind = kind;
+            this.token = token;
+            this.form = form;
+            this.offset = offset;
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * @return the token's index in the sentence
+         */
+        int getToken() {
+            return token;
+        }
+
+        String getForm() {
+            return form;
+        }
+
+        /**
+         * @return where in the sentence text we expected the token (or, for SPACE_AFTER, where it ended)
+         */
+        int getOffset() {
+            return offset;
+        }
+
+        @Override
+        public String toString() {
+            switch (kind) {
+                case SKIPPED_TEXT:
+                    return "token " + (token + 1) + " `" + form + "` found further on than offset " + offset;
+                case NOT_FOUND:
+                    return "token " + (token + 1) + " `" + form + "` not found after offset " + offset;
+                default:
+                    return "token " + (token + 1) + " `" + form + "` SpaceAfter doesn't match the text at offset "
+                            + offset;
+            }
+        }
+    }
+
+    private final int[] begins;
+    private final int[] ends;
+    private final List<Mismatch> mismatches;
+
+    private TokenOffsets(int[] begins, int[] ends, List<Mismatch> mismatches) {
+        this.begins = begins;
+        this.ends = ends;
+        this.mismatches = mismatches;
+    }
+
+    /**
+     * @param text the sentence text
+     * @param forms every token's form, in order
+     * @param noSpaceAfter for every token, whether its MISC has SpaceAfter=No
+     */
+    static TokenOffsets align(String text, String[] forms, boolean[] noSpaceAfter) {
+        int[] begins = new int[forms.length];
+        int[] ends = new int[forms.length];
+        List<Mismatch> mismatches = null;
+        int end = 0;
+        for (int i = 0; i < forms.length; i++) {
+            String form = forms[i];
+            int position = end;
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+
+            int begin;
+            if (form.isEmpty()) {
+                begin = end;
+            } else if (text.startsWith(form, position)) {
+                begin = position;
+            } else {
+                // the only case where we have to search
+                begin = text.indexOf(form, end);
+                Mismatch mismatch = new Mismatch(begin < 0 ? Mismatch.Kind.NOT_FOUND : Mismatch.Kind.SKIPPED_TEXT,
+                        i, form, position);
+                if (mismatches == null) {
+                    mismatches = new ArrayList<>();
+                }
+                mismatches.add(mismatch);
+                if (begin < 0) {
+                    begins[i] = ends[i] = position;
+                    end = position;
+                    continue;
+                }
+            }
+            end = begin + form.length();
+            begins[i] = begin;
+            ends[i] = end;
+
+            if (i + 1 < forms.length && end < text.length()
+                    && Character.isWhitespace(text.charAt(end)) == noSpaceAfter[i]) {
+                if (mismatches == null) {
+                    mismatches = new ArrayList<>();
+                }
+                mismatches.add(new Mismatch(Mismatch.Kind.SPACE_AFTER, i, form, end));
+            }
+        }
+        return new TokenOffsets(begins, ends,
+                mismatches == null ? Collections.<Mismatch>emptyList() : mismatches);
+    }
+
+    /**
+     * @return where token i begins in the sentence text
+     */
+    int getBegin(int i) {
+        return begins[i];
+    }
+
+    /**
+     * @return where token i ends in the sentence text
+     */
+    int getEnd(int i) {
+        return ends[i];
+    }
+
+    /**
+     * @return everything that didn't agree, in token order. Empty if the text and the tokens agree.
+     */
+    List<Mismatch> getMismatches() {
+        return mismatches;
+    }
+}
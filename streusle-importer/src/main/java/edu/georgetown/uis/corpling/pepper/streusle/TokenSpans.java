@@ -0,0 +1,38 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import edu.georgetown.uis.corpling.pepper.streusle.SentenceStage.Node;
+
+/**
+ * Hands out the single-token spans that the span-level token annotations (pos, lextag, and the swe's
+ * ss, ss2, lexcat and lexlemma) go on. Normally every annotation gets a span of its own, but with
+ * {@link StreusleImporterProperties#PROP_MERGE_TOKEN_SPANS} each token gets at most one, shared by all
+ * of them, which saves a span and a spanning relation per annotation. ANNIS grids look the same either way.
+ * One per sentence.
+ */
+class TokenSpans {
+    private final boolean merge;
+    private final Map<Node, Node> spans;
+
+    TokenSpans(boolean merge) {
+        this.merge = merge;
+        this.spans = merge ? new IdentityHashMap<>() : null;
+    }
+
+    /**
+     * @return a span over just token to annotate: a new one, or the token's shared one when merging
+     */
+    Node spanFor(SentenceStage stage, Node token) {
+        if (!merge) {
+            return stage.createSpan(token);
+        }
+        Node span = spans.get(token);
+        if (span == null) {
+            span = stage.createSpan(token);
+            spans.put(token, span);
+        }
+        return span;
+    }
+}
@@ -0,0 +1,77 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.georgetown.uis.corpling.pepper.streusle.SentenceStage.Node;
+
+/**
+ * Maps a sentence's CONLLU IDs to its tokens. Almost every ID is a plain integer, so those go in an
+ * array indexed by the ID itself, and looking one up is just an array access. The odd ellipsis token
+ * (e.g. 10.1) goes in a small map on the side.
+ */
+class TokenTable {
+    private Node[] byId;
+    private final Map<String, Node> ellipsisTokens = new HashMap<>();
+
+    /**
+     * @param tokenCount how many integer-ID tokens the sentence has. Just a sizing hint.
+     */
+    TokenTable(int tokenCount) {
+        // + 1 because CONLLU IDs are 1-indexed
+        byId = new Node[tokenCount + 1];
+    }
+
+    void put(int id, Node token) {
+        if (id >= byId.length) {
+            byId = Arrays.copyOf(byId, Math.max(id + 1, byId.length * 2));
+        }
+        byId[id] = token;
+    }
+
+    void put(String id, Node token) {
+        int intId = parseId(id);
+        if (intId >= 0) {
+            put(intId, token);
+        } else {
+            ellipsisTokens.put(id, token);
+        }
+    }
+
+    /**
+     * @return the token with this ID, or null if there is none
+     */
+    Node get(int id) {
+        return id >= 0 && id < byId.length ? byId[id] : null;
+    }
+
+    /**
+     * @return the token with this ID, e.g. "5" or "5.1", or null if there is none
+     */
+    Node get(String id) {
+        int intId = parseId(id);
+        return intId >= 0 ? get(intId) : ellipsisTokens.get(id);
+    }
+
+    /**
+     * @return id as an int if it is written the way Integer.toString would write a non-negative int,
+     *         else -1. Anything else (like "10.1") can only be an ellipsis token's ID.
+     */
+    private static int parseId(String id) {
+        int length = id.length();
+        // 9 digits is as far as we can go without having to worry about overflow
+        if (length == 0 || length > 9 || (length > 1 && id.charAt(0) == '0')) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
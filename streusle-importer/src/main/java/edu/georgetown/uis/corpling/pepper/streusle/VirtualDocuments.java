@@ -0,0 +1,123 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.eclipsesource.json.JsonByteParser;
+
+/**
+ * Lets the importer treat each document in a whole-corpus STREUSLE JSON file as if it were a file of
+ * its own, without splitting the corpus on disk. {@link #index} finds the byte range(s) each document's
+ * sentences occupy, and each document's resource URI is the corpus file's URI with those ranges as its
+ * fragment, e.g. file:/data/streusle.gov.json#1834-95120. {@link #read} then reads just those bytes
+ * back as a document-level JSON array.
+ */
+final class VirtualDocuments {
+
+    private VirtualDocuments() {
+    }
+
+    /**
+     * A contiguous run of a document's sentences in the corpus file: from the first one's opening brace
+     * to just past the last one's closing brace.
+     */
+    static final class Range {
+        final long start;
+        final long end;
+
+        Range(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Find every document's sentences in the corpus in one streaming pass. A document's sentences are
+     * normally all in a row, but if one turns up again later it just gets another range.
+     * @return document ID (see {@link StreusleCorpusSplitter#sent2doc}) to its ranges, in corpus order
+     */
+    static Map<String, List<Range>> index(Path corpus) throws IOException {
+        ByteBuffer input;
+        try (FileChannel channel = FileChannel.open(corpus, StandardOpenOption.READ)) {
+            input = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        Map<String, List<Range>> documents = new LinkedHashMap<>();
+        String[] lastDocId = new String[1];
+        new JsonByteParser(new SentenceBoundaryHandler((sentenceId, start, end) -> {
+            String docId = StreusleCorpusSplitter.sent2doc(sentenceId);
+            List<Range> ranges = documents.computeIfAbsent(docId, k -> new ArrayList<>());
+            if (docId.equals(lastDocId[0])) {
+                // still the same run of sentences, extend it
+                Range last = ranges.remove(ranges.size() - 1);
+                ranges.add(new Range(last.start, end));
+            } else {
+                ranges.add(new Range(start, end));
+            }
+            lastDocId[0] = docId;
+        })).parse(input);
+        return documents;
+    }
+
+    /**
+     * @return ranges as a URI fragment, e.g. "1834-95120" or "1834-95120,204412-210007"
+     */
+    static String toFragment(List<Range> ranges) {
+        StringBuilder fragment = new StringBuilder();
+        for (Range range : ranges) {
+            if (fragment.length() > 0) {
+                fragment.append(',');
+            }
+            fragment.append(range.start).append('-').append(range.end);
+        }
+        return fragment.toString();
+    }
+
+    /**
+     * Read a virtual document's sentences from the corpus file, wrapped up as a JSON array so that it
+     * looks just like a split-out document. Only the document's own ranges are read.
+     * @param fragment as made by {@link #toFragment}
+     */
+    static ByteBuffer read(Path corpus, String fragment) throws IOException {
+        String[] rangeStrings = fragment.split(",");
+        long[] starts = new long[rangeStrings.length];
+        long[] ends = new long[rangeStrings.length];
+        long length = 2 + rangeStrings.length - 1;
+        for (int i = 0; i < rangeStrings.length; i++) {
+            int dash = rangeStrings[i].indexOf('-');
+            starts[i] = Long.parseLong(rangeStrings[i].substring(0, dash));
+            ends[i] = Long.parseLong(rangeStrings[i].substring(dash + 1));
+            length += ends[i] - starts[i];
+        }
+
+        ByteBuffer document = ByteBuffer.allocate(Math.toIntExact(length));
+        document.put((byte) '[');
+        try (FileChannel channel = FileChannel.open(corpus, StandardOpenOption.READ)) {
+            for (int i = 0; i < starts.length; i++) {
+                if (i > 0) {
+                    document.put((byte) ',');
+                }
+                document.limit(document.position() + Math.toIntExact(ends[i] - starts[i]));
+                long position = starts[i];
+                while (document.hasRemaining()) {
+                    int read = channel.read(document, position);
+                    if (read < 0) {
+                        throw new EOFException("Document range " + rangeStrings[i] + " is past the end of " + corpus);
+                    }
+                    position += read;
+                }
+                document.limit(document.capacity());
+            }
+        }
+        document.put((byte) ']');
+        document.flip();
+        return document;
+    }
+}
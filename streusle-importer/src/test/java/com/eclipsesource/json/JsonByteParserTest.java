@@ -0,0 +1,178 @@
+package com.eclipsesource.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * JsonByteParser has to report the same events and build the same values from UTF-8 bytes as JsonParser
+ * does from the decoded characters, and reject what a strict UTF-8 decoder would.
+ */
+public class JsonByteParserTest {
+  private static final String[] INPUTS = {
+      "\"caf\\u00e9 \\u4e2d \\u0041\\u0000\"",
+      "[\"a\\\"b\", \"c\\\\d\", \"\\\"\\\\\", \"\\/\\b\\f\\n\\r\\t\"]",
+      // a surrogate pair, escaped and as 4-byte UTF-8
+      "[\"\\ud83d\\ude00\", \"\\uD834\\uDD1E\", \"\uD83D\uDE00\", \"x\uD834\uDD1Ey\"]",
+      // 2- and 3-byte UTF-8, in names too
+      "{\"caf\u00e9\": \"na\u00efve\", \"\u4e2d\u6587\": \"\u201cquoted\u201d\", \"na\\u006de\": \"\uD83D\uDE00\"}",
+      "[0, -0, 7, -7, 123456789, -123456789, 1234567890, 2147483647, -2147483648, 2147483648,"
+          + " 99999999999999999999999, -99999999999999999999999, 1.5, -0.0, 1e3, 12E-3, 6.02e+23]",
+      "{\"a\": [true, false, null, {}, []], \"b\": {\"c\": [1, [2, [3]]]}}",
+      " \t\r\n[ 1 ,\n\"two\" ]\n ",
+  };
+
+  // UTF-8 inside a JSON string that a strict decoder wouldn't accept
+  private static final int[][] MALFORMED = {
+      {0x80}, // a continuation byte on its own
+      {0xBF},
+      {0xFF}, // never valid
+      {0xF5, 0x80, 0x80, 0x80}, // lead byte past U+10FFFF
+      {0xE4, 0xB8}, // cut short
+      {0xE4, '"'},
+      {0xF0, 0x9F, 0x98},
+      {0xC3, 0x28}, // not a continuation byte
+      {0xC0, 0x80}, // overlong U+0000
+      {0xC1, 0xBF}, // overlong U+007F
+      {0xE0, 0x80, 0x80}, // overlong U+0000
+      {0xE0, 0x9F, 0xBF}, // overlong U+07FF
+      {0xF0, 0x80, 0x80, 0x80}, // overlong U+0000
+      {0xF0, 0x8F, 0xBF, 0xBF}, // overlong U+FFFF
+      {0xED, 0xA0, 0x80}, // a surrogate
+      {0xED, 0xBF, 0xBF},
+      {0xF4, 0x90, 0x80, 0x80}, // past U+10FFFF
+  };
+
+  /**
+   * Every event, with what it carries.
+   */
+  private static class Recorder extends JsonHandler<Object, Object> {
+    final List<String> events = new ArrayList<String>();
+
+    @Override
+    public void endNull() {
+      events.add("null");
+    }
+
+    @Override
+    public void endBoolean(boolean value) {
+      events.add("boolean " + value);
+    }
+
+    @Override
+    public void endString(String string) {
+      events.add("string " + string);
+    }
+
+    @Override
+    public void endNumber(String string) {
+      events.add("number " + string);
+    }
+
+    @Override
+    public void endInt(int value) {
+      events.add("int " + value);
+    }
+
+    @Override
+    public Object startArray() {
+      events.add("[");
+      return null;
+    }
+
+    @Override
+    public void endArray(Object array) {
+      events.add("]");
+    }
+
+    @Override
+    public Object startObject() {
+      events.add("{");
+      return null;
+    }
+
+    @Override
+    public void endObject(Object object) {
+      events.add("}");
+    }
+
+    @Override
+    public void endObjectName(Object object, String name) {
+      events.add("name " + name);
+    }
+  }
+
+  private static byte[] utf8(String string) {
+    return string.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void sameEventsAsJsonParser() throws IOException {
+    for (String input : INPUTS) {
+      Recorder expected = new Recorder();
+      new JsonParser(expected).parse(new StringReader(input));
+      Recorder actual = new Recorder();
+      new JsonByteParser(actual).parse(utf8(input));
+      assertEquals(input, expected.events, actual.events);
+    }
+  }
+
+  @Test
+  public void sameValuesAsJsonParser() throws IOException {
+    for (String input : INPUTS) {
+      JsonValue expected = Json.parse(new StringReader(input));
+      assertEquals(input, expected, Json.parse(ByteBuffer.wrap(utf8(input))));
+      // and what they print back, which tells an int from the same number as text
+      assertEquals(input, expected.toString(), Json.parse(ByteBuffer.wrap(utf8(input))).toString());
+    }
+  }
+
+  @Test
+  public void decodesMultiByteCharacters() {
+    JsonArray array = Json.parse(ByteBuffer.wrap(utf8(INPUTS[2]))).asArray();
+    assertEquals("\uD83D\uDE00", array.get(0).asString());
+    assertEquals("\uD834\uDD1E", array.get(1).asString());
+    assertEquals("\uD83D\uDE00", array.get(2).asString());
+    assertEquals("x\uD834\uDD1Ey", array.get(3).asString());
+    assertEquals(4, utf8("\uD83D\uDE00").length);
+  }
+
+  @Test
+  public void rejectsMalformedUtf8() {
+    for (int[] sequence : MALFORMED) {
+      byte[] input = new byte[sequence.length + 2];
+      input[0] = '"';
+      for (int i = 0; i < sequence.length; i++) {
+        input[i + 1] = (byte)sequence[i];
+      }
+      input[input.length - 1] = '"';
+      try {
+        new JsonByteParser(new Json.DefaultHandler()).parse(input);
+        fail("Accepted " + hex(sequence));
+      } catch (ParseException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test(expected = ParseException.class)
+  public void rejectsInputCutShortInACharacter() {
+    new JsonByteParser(new Json.DefaultHandler()).parse(new byte[] {'"', (byte)0xE4, (byte)0xB8});
+  }
+
+  private static String hex(int[] sequence) {
+    StringBuilder sb = new StringBuilder();
+    for (int b : sequence) {
+      sb.append(String.format("%02X ", b));
+    }
+    return sb.toString().trim();
+  }
+}
@@ -0,0 +1,183 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.SPointingRelation;
+import org.corpus_tools.salt.common.SSpan;
+import org.corpus_tools.salt.common.SSpanningRelation;
+import org.corpus_tools.salt.common.STextualDS;
+import org.corpus_tools.salt.common.STextualRelation;
+import org.corpus_tools.salt.common.SToken;
+import org.corpus_tools.salt.core.SAnnotation;
+import org.corpus_tools.salt.core.SLayer;
+import org.corpus_tools.salt.core.SNode;
+import org.corpus_tools.salt.core.SRelation;
+
+/**
+ * Writes a document graph out as text, one line per node, relation and layer, so that two graphs can be
+ * compared with assertEquals (and the difference read off the failure message).
+ */
+final class GraphDump {
+    private GraphDump() {
+    }
+
+    /**
+     * @return every node and relation in the graph's order, with its ID, name, annotations and layers
+     *         (and a relation's ends, and a textual relation's offsets), then every layer by name with its
+     *         contents.
+     *         Two graphs with the same dump were built by the same operations in the same order.
+     */
+    static String dump(SDocumentGraph graph) {
+        StringBuilder sb = new StringBuilder();
+        for (SNode node : graph.getNodes()) {
+            sb.append("N ").append(kind(node)).append(' ').append(node.getId()).append(' ').append(node.getName());
+            if (node instanceof STextualDS) {
+                sb.append(" text=").append(((STextualDS) node).getText());
+            }
+            appendAnnotations(sb, node.getAnnotations());
+            appendLayers(sb, node.getLayers());
+            sb.append('\n');
+        }
+        for (SRelation<?, ?> relation : graph.getRelations()) {
+            sb.append("R ").append(kind(relation)).append(' ').append(relation.getId()).append(' ')
+                    .append(relation.getName()).append(' ').append(relation.getType()).append(' ')
+                    .append(relation.getSource().getId()).append(" -> ").append(relation.getTarget().getId());
+            if (relation instanceof STextualRelation) {
+                STextualRelation textual = (STextualRelation) relation;
+                sb.append(" [").append(textual.getStart()).append(',').append(textual.getEnd()).append(']');
+            }
+            appendAnnotations(sb, relation.getAnnotations());
+            appendLayers(sb, relation.getLayers());
+            sb.append('\n');
+        }
+        // Salt keeps a graph's layers in a set, so they come out in no particular order
+        List<SLayer> layers = new ArrayList<>(graph.getLayers());
+        layers.sort(Comparator.comparing(SLayer::getName));
+        for (SLayer layer : layers) {
+            sb.append("L ").append(layer.getName()).append(" nodes=");
+            appendIds(sb, layer.getNodes());
+            sb.append(" relations=");
+            appendIds(sb, layer.getRelations());
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return what the graph says, one sorted line per fact, without IDs or names: that a token covers some
+     *         text, each annotation on a token, span or relation, each layer something is in, and each
+     *         relation between tokens or spans. Tokens are described by their offsets and spans by their
+     *         tokens, so the facts don't change with how many spans there are or in which order things
+     *         were added. Graphs that differ in that way (merged token spans, say) have the same facts.
+     */
+    static List<String> facts(SDocumentGraph graph) {
+        Map<SNode, String> names = new IdentityHashMap<>();
+        for (SRelation<?, ?> relation : graph.getRelations()) {
+            if (relation instanceof STextualRelation) {
+                STextualRelation textual = (STextualRelation) relation;
+                names.put(textual.getSource(), "token[" + textual.getStart() + "," + textual.getEnd() + "]");
+            }
+        }
+        Map<SNode, List<String>> spanTokens = new IdentityHashMap<>();
+        for (SRelation<?, ?> relation : graph.getRelations()) {
+            if (relation instanceof SSpanningRelation) {
+                spanTokens.computeIfAbsent(relation.getSource(), span -> new ArrayList<>())
+                        .add(names.get(relation.getTarget()));
+            }
+        }
+        for (Map.Entry<SNode, List<String>> span : spanTokens.entrySet()) {
+            names.put(span.getKey(), "span" + span.getValue());
+        }
+
+        List<String> facts = new ArrayList<>();
+        for (SNode node : graph.getNodes()) {
+            if (node instanceof STextualDS) {
+                facts.add("text " + ((STextualDS) node).getText());
+                continue;
+            }
+            String name = names.get(node);
+            if (node instanceof SToken) {
+                facts.add(name);
+            }
+            addFacts(facts, name, node.getAnnotations(), node.getLayers());
+        }
+        for (SRelation<?, ?> relation : graph.getRelations()) {
+            if (relation instanceof STextualRelation || relation instanceof SSpanningRelation) {
+                continue;
+            }
+            String name = relation.getType() + " " + names.get(relation.getSource()) + " -> "
+                    + names.get(relation.getTarget());
+            facts.add(name);
+            addFacts(facts, name, relation.getAnnotations(), relation.getLayers());
+        }
+        facts.sort(null);
+        return facts;
+    }
+
+    private static void addFacts(List<String> facts, String name, Set<SAnnotation> annotations, Set<SLayer> layers) {
+        for (SAnnotation annotation : annotations) {
+            facts.add(name + " " + render(annotation));
+        }
+        for (SLayer layer : layers) {
+            facts.add(name + " in " + layer.getName());
+        }
+    }
+
+    private static String kind(Object element) {
+        if (element instanceof STextualDS) {
+            return "text";
+        } else if (element instanceof SToken) {
+            return "token";
+        } else if (element instanceof SSpan) {
+            return "span";
+        } else if (element instanceof STextualRelation) {
+            return "textual";
+        } else if (element instanceof SSpanningRelation) {
+            return "spanning";
+        } else if (element instanceof SPointingRelation) {
+            return "pointing";
+        }
+        return element.getClass().getSimpleName();
+    }
+
+    // sorted, since Salt keeps annotations and layers in sets
+    private static void appendAnnotations(StringBuilder sb, Set<SAnnotation> annotations) {
+        List<String> rendered = new ArrayList<>();
+        for (SAnnotation annotation : annotations) {
+            rendered.add(render(annotation));
+        }
+        rendered.sort(null);
+        sb.append(' ').append(rendered);
+    }
+
+    static String render(SAnnotation annotation) {
+        String name = annotation.getNamespace() == null
+                ? annotation.getName()
+                : annotation.getNamespace() + "::" + annotation.getName();
+        return name + "=" + annotation.getValue();
+    }
+
+    private static void appendLayers(StringBuilder sb, Set<SLayer> layers) {
+        List<String> names = new ArrayList<>();
+        for (SLayer layer : layers) {
+            names.add(layer.getName());
+        }
+        names.sort(null);
+        sb.append(" layers=").append(names);
+    }
+
+    private static void appendIds(StringBuilder sb, Set<?> elements) {
+        List<String> ids = new ArrayList<>();
+        for (Object element : elements) {
+            ids.add(element instanceof SNode ? ((SNode) element).getId() : ((SRelation<?, ?>) element).getId());
+        }
+        ids.sort(null);
+        sb.append(ids);
+    }
+}
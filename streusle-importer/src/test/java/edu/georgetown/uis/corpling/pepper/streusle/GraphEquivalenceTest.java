@@ -0,0 +1,194 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonObject;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The mapper has more than one way to get to the same graph. Each test maps the bundled sample and a
+ * synthetic document both ways and expects the very same graph: the same nodes and relations in the same
+ * order, with the same IDs, names, annotations and layers.
+ */
+public class GraphEquivalenceTest {
+    private static final int SYNTHETIC_SENTENCES = 300;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * @param keysAndValues property names, each followed by its value
+     */
+    static StreusleImporterProperties properties(Object... keysAndValues) {
+        StreusleImporterProperties properties = new StreusleImporterProperties();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            properties.setPropertyValue((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return properties;
+    }
+
+    private String map(byte[] document, StreusleImporterProperties properties) throws IOException {
+        return GraphDump.dump(TestDocuments.map(document, folder.newFile().toPath(), properties));
+    }
+
+    private void assertSameGraph(StreusleImporterProperties expected, StreusleImporterProperties actual)
+            throws IOException {
+        byte[] sample = TestDocuments.sample();
+        assertEquals(map(sample, expected), map(sample, actual));
+        byte[] synthetic = TestDocuments.synthetic(SYNTHETIC_SENTENCES);
+        assertEquals(map(synthetic, expected), map(synthetic, actual));
+    }
+
+    /**
+     * The per-column methods are the reference, TokenColumnPass is the fused version of them.
+     */
+    @Test
+    public void fusedColumnsMatchPerColumnMethods() throws IOException {
+        assertSameGraph(properties(StreusleImporterProperties.PROP_FUSED_COLUMNS, false),
+                properties(StreusleImporterProperties.PROP_FUSED_COLUMNS, true));
+    }
+
+    @Test
+    public void fusedColumnsMatchPerColumnMethodsWithMergedTokenSpans() throws IOException {
+        assertSameGraph(
+                properties(StreusleImporterProperties.PROP_FUSED_COLUMNS, false,
+                        StreusleImporterProperties.PROP_MERGE_TOKEN_SPANS, true),
+                properties(StreusleImporterProperties.PROP_FUSED_COLUMNS, true,
+                        StreusleImporterProperties.PROP_MERGE_TOKEN_SPANS, true));
+    }
+
+    /**
+     * Streaming parses and maps one sentence at a time instead of parsing the whole document first.
+     */
+    @Test
+    public void streamingMatchesTree() throws IOException {
+        assertSameGraph(properties(StreusleImporterProperties.PROP_STREAMING, false),
+                properties(StreusleImporterProperties.PROP_STREAMING, true));
+    }
+
+    /**
+     * A document has to be an array of sentences. Streaming mustn't quietly map anything else to an
+     * empty graph when parsing the whole document fails on it.
+     */
+    @Test
+    public void streamingFailsLikeTreeOnNonArrays() throws IOException {
+        String[] documents = {"{\"sent_id\": \"doc-1\"}", "\"doc\"", "1", "true", "null"};
+        for (String document : documents) {
+            for (boolean streaming : new boolean[]{false, true}) {
+                try {
+                    map(document.getBytes(StandardCharsets.UTF_8),
+                            properties(StreusleImporterProperties.PROP_STREAMING, streaming));
+                    fail("Mapped " + document + (streaming ? " streaming" : ""));
+                } catch (RuntimeException | IOException e) {
+                    // expected: an exception from the mapper, or a status other than COMPLETED
+                }
+            }
+        }
+    }
+
+    /**
+     * An MWE ID can't be larger than the sentence's token count. Without the check, this one would have
+     * sized MweGroups' arrays to two billion entries.
+     */
+    @Test
+    public void mweIdPastTheTokenCountFails() throws IOException {
+        JsonArray document = Json.parse(new String(TestDocuments.sample(), StandardCharsets.UTF_8)).asArray();
+        JsonObject token = document.get(0).asObject().get("toks").asArray().get(0).asObject();
+        token.set("smwe", new JsonArray().add(2000000000).add(1));
+        byte[] json = document.toString().getBytes(StandardCharsets.UTF_8);
+        for (boolean fused : new boolean[]{false, true}) {
+            try {
+                map(json, properties(StreusleImporterProperties.PROP_FUSED_COLUMNS, fused));
+                fail("Mapped an SMWE ID past the token count" + (fused ? " fused" : ""));
+            } catch (RuntimeException | IOException e) {
+                // expected: an exception from the mapper, or a status other than COMPLETED
+            }
+        }
+    }
+
+    /**
+     * Sentences are staged on several threads, but merged in document order.
+     */
+    @Test
+    public void parallelMatchesSequential() throws IOException {
+        assertSameGraph(properties(StreusleImporterProperties.PROP_PARALLELISM, 1),
+                properties(StreusleImporterProperties.PROP_PARALLELISM, 4));
+    }
+
+    /**
+     * Off is the default, and the graph the importer has always built.
+     */
+    @Test
+    public void unmergedTokenSpansMatchDefault() throws IOException {
+        assertSameGraph(properties(), properties(StreusleImporterProperties.PROP_MERGE_TOKEN_SPANS, false));
+    }
+
+    /**
+     * The sample's facts as the baseline mapper, before any of the paths above existed, wrote them out
+     * into reviews-sample.facts. Every other test here compares one path with another; this one pins the
+     * default configuration to what the importer built before.
+     */
+    @Test
+    public void defaultMatchesBaseline() throws IOException, URISyntaxException {
+        Path golden = Paths.get(getClass().getResource("/" + TestDocuments.SAMPLE + ".facts").toURI());
+        SDocumentGraph graph = TestDocuments.map(TestDocuments.sample(), folder.newFile().toPath(), properties());
+        assertEquals(Files.readAllLines(golden, StandardCharsets.UTF_8), GraphDump.facts(graph));
+    }
+
+    /**
+     * Merged, a token's span annotations end up on fewer spans, but every one of them is still there.
+     */
+    @Test
+    public void mergedTokenSpansHaveTheSameAnnotations() throws IOException {
+        for (byte[] document : new byte[][]{TestDocuments.sample(), TestDocuments.synthetic(SYNTHETIC_SENTENCES)}) {
+            SDocumentGraph merged = TestDocuments.map(document, folder.newFile().toPath(),
+                    properties(StreusleImporterProperties.PROP_MERGE_TOKEN_SPANS, true));
+            SDocumentGraph unmerged = TestDocuments.map(document, folder.newFile().toPath(), properties());
+            assertEquals(GraphDump.facts(unmerged), GraphDump.facts(merged));
+            assertTrue(merged.getSpans().size() < unmerged.getSpans().size());
+        }
+    }
+
+    /**
+     * The first mapping fills the cache, the second one gets its graph back out of the snapshot it left
+     * there instead of mapping the document again.
+     */
+    @Test
+    public void cachedMatchesUncached() throws IOException {
+        for (byte[] document : new byte[][]{TestDocuments.sample(), TestDocuments.synthetic(SYNTHETIC_SENTENCES)}) {
+            File cacheDirectory = folder.newFolder();
+            StreusleImporterProperties cached = properties(StreusleImporterProperties.PROP_CACHE_DIRECTORY,
+                    cacheDirectory.getAbsolutePath());
+            String uncached = map(document, properties());
+
+            assertEquals(uncached, map(document, cached));
+            File[] snapshots = cacheDirectory.listFiles();
+            assertEquals(1, snapshots.length);
+            Path snapshot = snapshots[0].toPath();
+            BasicFileAttributes filled = Files.readAttributes(snapshot, BasicFileAttributes.class);
+
+            assertEquals(uncached, map(document, cached));
+            // a miss would have written a new snapshot and moved it over the old one
+            BasicFileAttributes hit = Files.readAttributes(snapshot, BasicFileAttributes.class);
+            assertEquals(filled.fileKey(), hit.fileKey());
+            assertEquals(filled.lastModifiedTime(), hit.lastModifiedTime());
+            assertEquals(1, cacheDirectory.listFiles().length);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonValue;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.core.SLayer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The properties that leave parts of the graph out. With one of them switched off, what it stands for has to be
+ * gone, and everything else has to be exactly as in the default graph. Graphs are compared by
+ * {@link GraphDump#facts}, since leaving out spans changes the IDs of the ones after them.
+ */
+public class GraphPropertiesTest {
+    private static final String SUPERSENSE = "(ss|ss2|lexcat|lexlemma|wlemma)=";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Predicate<String> matching(String regex) {
+        return Pattern.compile(regex).asPredicate();
+    }
+
+    /**
+     * Map the sample and a synthetic document with and without the property, and check that switching it off
+     * removes the facts that are removed, and nothing else. Some of them may only be in one of the documents.
+     */
+    private void assertRemoves(String property, Predicate<String> removed, String... removedLayers)
+            throws IOException {
+        assertRemoves(property, removed, fact -> false, removedLayers);
+    }
+
+    /**
+     * @param ignored facts that are left out of the comparison on both sides, since they are expected to change
+     */
+    private void assertRemoves(String property, Predicate<String> removed, Predicate<String> ignored,
+                               String... removedLayers) throws IOException {
+        int removedCount = 0;
+        for (byte[] document : new byte[][]{TestDocuments.sample(), TestDocuments.synthetic(300)}) {
+            removedCount += assertRemoves(document, property, removed, ignored, removedLayers);
+        }
+        assertTrue(property + " doesn't stand for anything in the test documents", removedCount > 0);
+    }
+
+    // returns how many facts were removed
+    private int assertRemoves(byte[] document, String property, Predicate<String> removed,
+                              Predicate<String> ignored, String... removedLayers) throws IOException {
+        SDocumentGraph all = TestDocuments.map(document, folder.newFile().toPath(),
+                GraphEquivalenceTest.properties());
+        SDocumentGraph without = TestDocuments.map(document, folder.newFile().toPath(),
+                GraphEquivalenceTest.properties(property, false));
+
+        List<String> expected = new ArrayList<>();
+        int removedCount = 0;
+        for (String fact : GraphDump.facts(all)) {
+            if (removed.test(fact)) {
+                removedCount++;
+            } else if (!ignored.test(fact)) {
+                expected.add(fact);
+            }
+        }
+        List<String> actual = new ArrayList<>();
+        for (String fact : GraphDump.facts(without)) {
+            if (!ignored.test(fact)) {
+                actual.add(fact);
+            }
+        }
+        assertEquals(expected, actual);
+
+        Set<String> layers = layerNames(without);
+        for (String layer : removedLayers) {
+            assertTrue(layerNames(all).contains(layer));
+            assertFalse(layers.contains(layer));
+        }
+        return removedCount;
+    }
+
+    private static Set<String> layerNames(SDocumentGraph graph) {
+        Set<String> names = new TreeSet<>();
+        for (SLayer layer : graph.getLayers()) {
+            names.add(layer.getName());
+        }
+        return names;
+    }
+
+    // the keys of every FEATS or MISC entry in the document
+    private static Set<String> featureKeys(byte[] document, String member) {
+        Set<String> keys = new TreeSet<>();
+        for (JsonValue sentence : StreusleMapper.parse(ByteBuffer.wrap(document)).asArray()) {
+            for (String tokens : new String[]{"toks", "etoks"}) {
+                for (JsonValue token : sentence.asObject().get(tokens).asArray()) {
+                    JsonValue features = token.asObject().get(member);
+                    if (features == null || features.isNull()) {
+                        continue;
+                    }
+                    FeatureList list = FeatureList.of(features.asString());
+                    for (int i = 0; i < list.size(); i++) {
+                        keys.add(Pattern.quote(list.getKey(i)));
+                    }
+                }
+            }
+        }
+        return keys;
+    }
+
+    private void assertRemovesFeatures(String property, String member) throws IOException {
+        int removedCount = 0;
+        for (byte[] document : new byte[][]{TestDocuments.sample(), TestDocuments.synthetic(300)}) {
+            String keys = String.join("|", featureKeys(document, member));
+            removedCount += assertRemoves(document, property, matching("^token\\[\\d+,\\d+\\] (" + keys + ")="),
+                    fact -> false);
+        }
+        assertTrue(removedCount > 0);
+    }
+
+    @Test
+    public void edepsLayer() throws IOException {
+        assertRemoves(StreusleImporterProperties.PROP_EDEPS_LAYER, matching("^(ude|udecycle) "), "edeps", "cycle");
+    }
+
+    @Test
+    public void cycleLayer() throws IOException {
+        assertRemoves(StreusleImporterProperties.PROP_CYCLE_LAYER, matching("^udecycle "), "cycle");
+    }
+
+    @Test
+    public void govobjLayer() throws IOException {
+        assertRemoves(StreusleImporterProperties.PROP_GOVOBJ_LAYER, matching("^govobj | config="), "govobj");
+    }
+
+    @Test
+    public void tokenPos() throws IOException {
+        assertRemoves(StreusleImporterProperties.PROP_TOKEN_POS, matching("^token\\[\\d+,\\d+\\] pos="));
+    }
+
+    @Test
+    public void spanPos() throws IOException {
+        assertRemoves(StreusleImporterProperties.PROP_SPAN_POS, matching("^span\\[.*\\] pos="));
+    }
+
+    @Test
+    public void sentMwe() throws IOException {
+        assertRemoves(StreusleImporterProperties.PROP_SENT_MWE, matching(" sent_mwe="));
+    }
+
+    @Test
+    public void feats() throws IOException {
+        assertRemovesFeatures(StreusleImporterProperties.PROP_FEATS, "feats");
+    }
+
+    @Test
+    public void misc() throws IOException {
+        assertRemovesFeatures(StreusleImporterProperties.PROP_MISC, "misc");
+    }
+
+    /**
+     * SpaceAfter=No still lines the tokens up with the text without MISC (see {@link #misc}), but the MISC
+     * lists themselves shouldn't be parsed. Every token gets a MISC list no other test has, so the FeatureList cache tells
+     * whether any of them was.
+     */
+    @Test
+    public void miscIsNotParsedWithoutMisc() throws IOException {
+        JsonArray document = Json.parse(new String(TestDocuments.sample(), StandardCharsets.UTF_8)).asArray();
+        List<String> miscs = new ArrayList<>();
+        for (JsonValue sentence : document) {
+            for (JsonValue token : sentence.asObject().get("toks").asArray()) {
+                JsonValue misc = token.asObject().get("misc");
+                String unique = "GraphPropertiesTest=" + miscs.size();
+                miscs.add(misc == null || misc.isNull() ? unique : misc.asString() + "|" + unique);
+                token.asObject().set("misc", miscs.get(miscs.size() - 1));
+            }
+        }
+        byte[] json = document.toString().getBytes(StandardCharsets.UTF_8);
+        TestDocuments.map(json, folder.newFile().toPath(),
+                GraphEquivalenceTest.properties(StreusleImporterProperties.PROP_MISC, false));
+        for (String misc : miscs) {
+            assertFalse(misc, FeatureList.isCached(misc));
+        }
+    }
+
+    /**
+     * Without basic dependencies, an enhanced dependency that duplicates one isn't left out of the edeps
+     * layer anymore, so the enhanced ones don't compare either.
+     */
+    @Test
+    public void dependencies() throws IOException {
+        assertRemoves(StreusleImporterProperties.PROP_DEPENDENCIES, matching("^ud "), matching("^(ude|udecycle) "));
+    }
+
+    // MWE spans are the spans of more than one token that aren't sentences
+    @Test
+    public void mwes() throws IOException {
+        assertRemoves(StreusleImporterProperties.PROP_MWES, matching("^span\\[token[^\\]]*\\], .*\\] " + SUPERSENSE));
+    }
+
+    @Test
+    public void lextag() throws IOException {
+        assertRemoves(StreusleImporterProperties.PROP_LEXTAG, matching(" lextag="));
+    }
+
+    @Test
+    public void supersenses() throws IOException {
+        assertRemoves(StreusleImporterProperties.PROP_SUPERSENSES, matching("^span\\[.*\\] " + SUPERSENSE));
+    }
+}
@@ -0,0 +1,133 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.SPointingRelation;
+import org.corpus_tools.salt.common.SToken;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * What GraphSnapshot can't write, and what it won't read. Mapped graphs going through a snapshot and back are in
+ * {@link GraphEquivalenceTest#cachedMatchesUncached}.
+ */
+public class GraphSnapshotTest {
+    // a count of Integer.MAX_VALUE and of -1 (0xFFFFFFFF) as unsigned LEB128 varints
+    private static final int[] HUGE = {0xFF, 0xFF, 0xFF, 0xFF, 0x07};
+    private static final int[] NEGATIVE = {0xFF, 0xFF, 0xFF, 0xFF, 0x0F};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * @return a snapshot's header, version 1, followed by these bytes
+     */
+    private static byte[] snapshot(int... bytes) {
+        byte[] snapshot = new byte[5 + bytes.length];
+        snapshot[0] = 'S';
+        snapshot[1] = 'T';
+        snapshot[2] = 'S';
+        snapshot[3] = 'N';
+        snapshot[4] = 1;
+        for (int i = 0; i < bytes.length; i++) {
+            snapshot[5 + i] = (byte) bytes[i];
+        }
+        return snapshot;
+    }
+
+    private static int[] concat(int[] first, int... rest) {
+        int[] bytes = Arrays.copyOf(first, first.length + rest.length);
+        System.arraycopy(rest, 0, bytes, first.length, rest.length);
+        return bytes;
+    }
+
+    private static void assertUnreadable(byte[] snapshot) {
+        try {
+            GraphSnapshot.read(new ByteArrayInputStream(snapshot));
+            fail("Read a damaged snapshot");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Counts are checked against what's left of the snapshot before anything is allocated for them.
+     */
+    @Test
+    public void hugeStringCount() {
+        assertUnreadable(snapshot(HUGE));
+    }
+
+    @Test
+    public void negativeStringCount() {
+        assertUnreadable(snapshot(NEGATIVE));
+    }
+
+    @Test
+    public void hugeStringLength() {
+        // one string
+        assertUnreadable(snapshot(concat(new int[]{1}, HUGE)));
+    }
+
+    @Test
+    public void hugeNodeCount() {
+        // no strings, no graph ID, no layers
+        assertUnreadable(snapshot(concat(new int[]{0, 0, 0}, HUGE)));
+    }
+
+    @Test
+    public void relationToAMissingNode() {
+        // no strings, no graph ID, no layers, no nodes, one pointing relation from node 5 to node 6
+        assertUnreadable(snapshot(0, 0, 0, 0, 1, 2, 0, 0, 0, 5, 6, 0, 0));
+    }
+
+    /**
+     * The cache takes a snapshot it can't read for a miss, and the document gets mapped again.
+     */
+    @Test
+    public void damagedSnapshotIsACacheMiss() throws IOException {
+        DocumentCache cache = new DocumentCache(folder.getRoot().toPath());
+        String key = cache.key(ByteBuffer.wrap(new byte[]{'[', ']'}), "");
+        cache.save(key, SaltFactory.createSDocumentGraph());
+        Files.write(folder.getRoot().toPath().resolve(key + ".snap"), snapshot(concat(new int[]{0, 0, 0}, HUGE)));
+        assertNull(cache.load(key));
+    }
+
+    /**
+     * A relation whose end isn't one of the graph's nodes has nothing to point at in the snapshot.
+     */
+    @Test
+    public void relationToANodeOutsideTheGraph() throws IOException {
+        SDocumentGraph graph = SaltFactory.createSDocumentGraph();
+        SToken source = SaltFactory.createSToken();
+        SToken target = SaltFactory.createSToken();
+        graph.addNode(source);
+        graph.addNode(target);
+        SPointingRelation relation = SaltFactory.createSPointingRelation();
+        relation.setSource(source);
+        relation.setTarget(target);
+        graph.addRelation(relation);
+
+        SToken outside = SaltFactory.createSToken();
+        outside.setId("outside");
+        relation.setTarget(outside);
+        try {
+            GraphSnapshot.write(graph, new ByteArrayOutputStream());
+            fail("Wrote a relation to a node outside the graph");
+        } catch (UnsupportedOperationException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("outside"));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Reading a sentence or document through the index has to give what parsing the whole file gives, and
+ * a damaged sidecar has to be rebuilt rather than trusted.
+ */
+public class SentenceIndexTest {
+    private static final int DOCUMENTS = 3;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final SyntheticCorpus synthetic = new SyntheticCorpus().sentencesPerDocument(5);
+    private Path corpus;
+    private JsonArray sentences;
+
+    @Before
+    public void writeCorpus() throws IOException {
+        corpus = folder.newFile("corpus.json").toPath();
+        try (Writer writer = Files.newBufferedWriter(corpus, StandardCharsets.UTF_8)) {
+            synthetic.corpus(DOCUMENTS).writeTo(writer);
+        }
+        sentences = StreusleMapper.parse(ByteBuffer.wrap(Files.readAllBytes(corpus))).asArray();
+    }
+
+    private void assertMatchesWholeFile(SentenceIndex index) throws IOException {
+        assertEquals(sentences.size(), index.size());
+        for (int i = 0; i < sentences.size(); i++) {
+            JsonObject sentence = sentences.get(i).asObject();
+            String sentenceId = sentence.get("sent_id").asString();
+            assertEquals(sentenceId, index.getSentenceId(i));
+            assertEquals(i, index.indexOf(sentenceId));
+            assertEquals(sentence, index.readSentence(i));
+            assertEquals(sentence, index.readSentence(sentenceId));
+        }
+        for (int d = 0; d < DOCUMENTS; d++) {
+            String docId = synthetic.documentId(d);
+            List<JsonValue> expected = new ArrayList<>();
+            for (JsonValue sentence : sentences) {
+                if (StreusleCorpusSplitter.sent2doc(sentence.asObject().get("sent_id").asString()).equals(docId)) {
+                    expected.add(sentence);
+                }
+            }
+            assertEquals(expected, new ArrayList<JsonValue>(index.readDocument(docId)));
+        }
+    }
+
+    @Test
+    public void readsWhatParsingTheWholeFileReads() throws IOException {
+        assertMatchesWholeFile(SentenceIndex.build(corpus));
+    }
+
+    @Test
+    public void sidecarIsWrittenAndLoaded() throws IOException {
+        assertMatchesWholeFile(SentenceIndex.open(corpus));
+        Path sidecar = SentenceIndex.sidecarFor(corpus);
+        assertTrue(Files.isRegularFile(sidecar));
+        assertMatchesWholeFile(SentenceIndex.open(corpus));
+        // only the sidecar, no temporary files left behind
+        assertEquals(Arrays.asList("corpus.json", "corpus.json" + SentenceIndex.SIDECAR_EXTENSION),
+                listFolder());
+    }
+
+    @Test
+    public void truncatedSidecarIsRebuilt() throws IOException {
+        SentenceIndex.open(corpus);
+        Path sidecar = SentenceIndex.sidecarFor(corpus);
+        byte[] bytes = Files.readAllBytes(sidecar);
+        Files.write(sidecar, Arrays.copyOf(bytes, bytes.length / 2));
+        assertMatchesWholeFile(SentenceIndex.open(corpus));
+    }
+
+    @Test
+    public void damagedCountIsRebuilt() throws IOException {
+        SentenceIndex.open(corpus);
+        Path sidecar = SentenceIndex.sidecarFor(corpus);
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(sidecar));
+        // the count follows magic, version, JSON size and modification time
+        bytes.putInt(4 + 4 + 8 + 8, Integer.MAX_VALUE);
+        Files.write(sidecar, bytes.array());
+        assertMatchesWholeFile(SentenceIndex.open(corpus));
+    }
+
+    private List<String> listFolder() {
+        List<String> names = new ArrayList<>(Arrays.asList(folder.getRoot().list()));
+        names.sort(null);
+        return names;
+    }
+}
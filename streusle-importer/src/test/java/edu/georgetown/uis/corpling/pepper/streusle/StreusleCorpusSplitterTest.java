@@ -0,0 +1,128 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonValue;
+import com.eclipsesource.json.ParseException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * StreusleCorpusSplitter has to write the files scripts/split_streusle_json.py did: one &lt;document ID&gt;.json
+ * per document, with the document's sentences in corpus order.
+ */
+public class StreusleCorpusSplitterTest {
+    private static final int DOCUMENTS = 5;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<String> sentenceIds(JsonArray sentences) {
+        List<String> ids = new ArrayList<>();
+        for (JsonValue sentence : sentences) {
+            ids.add(sentence.asObject().get("sent_id").asString());
+        }
+        return ids;
+    }
+
+    @Test
+    public void sent2doc() {
+        assertEquals("reviews-086839", StreusleCorpusSplitter.sent2doc("reviews-086839-0003"));
+        assertEquals("a-b-c", StreusleCorpusSplitter.sent2doc("a-b-c-d"));
+    }
+
+    // the script asserted that there was a document ID
+    @Test(expected = UnsupportedOperationException.class)
+    public void sent2docWithoutDocument() {
+        StreusleCorpusSplitter.sent2doc("0003");
+    }
+
+    private int split(String corpus) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, corpus.getBytes(StandardCharsets.UTF_8));
+        return StreusleCorpusSplitter.split(file, folder.newFolder().toPath());
+    }
+
+    /**
+     * Anything but an array of sentences is a ParseException with its location, not zero documents.
+     */
+    @Test
+    public void notAnArrayOfSentences() throws IOException {
+        String[] corpora = {"{\"sent_id\": \"doc-1\"}", "\"doc\"", "1", "true", "null"};
+        for (String corpus : corpora) {
+            try {
+                split(corpus);
+                fail("Split " + corpus);
+            } catch (ParseException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test(expected = ParseException.class)
+    public void sentenceWithoutSentId() throws IOException {
+        split("[{\"sent_id\": \"doc-1\"}, {\"text\": \"no ID\"}]");
+    }
+
+    @Test
+    public void split() throws IOException {
+        SyntheticCorpus synthetic = new SyntheticCorpus().sentencesPerDocument(4);
+        assertSplitsIntoDocuments(synthetic, synthetic.corpus(DOCUMENTS));
+    }
+
+    /**
+     * A document that comes back after another one gets the rest of its sentences added to its file, not
+     * a new file in its place.
+     */
+    @Test
+    public void splitInterleaved() throws IOException {
+        SyntheticCorpus synthetic = new SyntheticCorpus().sentencesPerDocument(4);
+        assertSplitsIntoDocuments(synthetic, synthetic.interleavedCorpus(DOCUMENTS));
+    }
+
+    private void assertSplitsIntoDocuments(SyntheticCorpus synthetic, JsonArray corpusJson) throws IOException {
+        Path corpus = folder.newFile().toPath();
+        try (Writer writer = Files.newBufferedWriter(corpus, StandardCharsets.UTF_8)) {
+            corpusJson.writeTo(writer);
+        }
+        Path split = folder.newFolder().toPath();
+        assertEquals(DOCUMENTS, StreusleCorpusSplitter.split(corpus, split));
+
+        Set<String> expectedFiles = new TreeSet<>();
+        for (int i = 0; i < DOCUMENTS; i++) {
+            expectedFiles.add(synthetic.documentId(i) + ".json");
+        }
+        try (Stream<Path> files = Files.list(split)) {
+            assertEquals(expectedFiles, files.map(file -> file.getFileName().toString())
+                    .collect(Collectors.toCollection(TreeSet::new)));
+        }
+
+        for (int i = 0; i < DOCUMENTS; i++) {
+            JsonArray expected = synthetic.document(i);
+            Path file = split.resolve(synthetic.documentId(i) + ".json");
+            String json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            JsonArray actual = Json.parse(json).asArray();
+            assertEquals(sentenceIds(expected), sentenceIds(actual));
+            // each sentence is copied byte for byte
+            for (int j = 0; j < expected.size(); j++) {
+                assertEquals(expected.get(j).toString(), actual.get(j).toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,566 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+
+/**
+ * Makes up document-level STREUSLE JSON of any size, in the shape StreusleMapper expects (and
+ * StreusleCorpusSplitter writes): toks with FEATS, MISC, enhanced dependencies and MWE
+ * membership, etoks, and swes/smwes/wmwes with heuristic relations.
+ * The sentences are nonsense, but they're valid: every token can be found in the sentence text,
+ * HEAD forms a tree, MWE token indexes increase, every referenced token exists.
+ * Everything is derived from the seed and the document's index, so a given configuration always
+ * produces exactly the same documents, and any one document can be generated without the others.
+ * The importer's tests map these next to the bundled sample, and the benchmarks get it through the
+ * importer's test jar, which is also how it ends up in benchmarks.jar:
+ * <pre>
+ * java -cp target/benchmarks.jar edu.georgetown.uis.corpling.pepper.streusle.SyntheticCorpus \
+ *     --out corpus/ --documents 7230 --sentences 10 --tokens 18 --density 0.5 --seed 1
+ * </pre>
+ */
+public class SyntheticCorpus {
+    // word, lemma, upos, xpos. A few non-ASCII words so that decoding gets exercised too.
+    private static final String[][] VOCABULARY = {
+            {"the", "the", "DET", "DT"}, {"a", "a", "DET", "DT"}, {"this", "this", "DET", "DT"},
+            {"place", "place", "NOUN", "NN"}, {"food", "food", "NOUN", "NN"}, {"staff", "staff", "NOUN", "NN"},
+            {"haircuts", "haircut", "NOUN", "NNS"}, {"year", "year", "NOUN", "NN"}, {"café", "café", "NOUN", "NN"},
+            {"São", "São", "PROPN", "NNP"}, {"Paulo", "Paulo", "PROPN", "NNP"}, {"Mike", "Mike", "PROPN", "NNP"},
+            {"loves", "love", "VERB", "VBZ"}, {"came", "come", "VERB", "VBD"}, {"took", "take", "VERB", "VBD"},
+            {"recommend", "recommend", "VERB", "VBP"}, {"give", "give", "VERB", "VB"}, {"was", "be", "AUX", "VBD"},
+            {"will", "will", "AUX", "MD"}, {"to", "to", "ADP", "IN"}, {"for", "for", "ADP", "IN"},
+            {"in", "in", "ADP", "IN"}, {"with", "with", "ADP", "IN"}, {"back", "back", "ADV", "RB"},
+            {"definitely", "definitely", "ADV", "RB"}, {"naïve", "naïve", "ADJ", "JJ"}, {"old", "old", "ADJ", "JJ"},
+            {"great", "great", "ADJ", "JJ"}, {"I", "I", "PRON", "PRP"}, {"we", "we", "PRON", "PRP"},
+            {"my", "my", "PRON", "PRP$"}, {"8", "8", "NUM", "CD"}, {"and", "and", "CCONJ", "CC"},
+            {",", ",", "PUNCT", ","}, {".", ".", "PUNCT", "."}, {"“quoted”", "“quoted”", "NOUN", "NN"},
+    };
+    private static final String[] DEPRELS = {
+            "nsubj", "obj", "obl", "amod", "det", "case", "advmod", "aux", "cc", "conj", "punct", "nmod:poss",
+            "compound", "compound:prt", "nummod", "mark"
+    };
+    private static final String[] EXTRA_EDEPRELS = {"nsubj", "obj", "obl:to", "conj", "nmod:poss", "ref", "nsubj:xsubj"};
+    private static final String[][] FEATURES = {
+            {"Definite", "Def", "Ind"}, {"Mood", "Ind", "Imp"}, {"Number", "Sing", "Plur"}, {"Person", "1", "3"},
+            {"PronType", "Prs", "Art", "Dem"}, {"Tense", "Past", "Pres"}, {"VerbForm", "Fin", "Inf", "Ger"},
+    };
+    private static final String[] NOUN_SUPERSENSES = {"n.PERSON", "n.FOOD", "n.LOCATION", "n.TIME", "n.GROUP", "n.ACT"};
+    private static final String[] VERB_SUPERSENSES = {"v.emotion", "v.motion", "v.social", "v.possession"};
+    private static final String[] PREP_SUPERSENSES = {"p.Goal", "p.Locus", "p.Purpose", "p.Possessor", "p.Gestalt"};
+    private static final String[] CONFIGS = {"default", "predicative", "possessive", "stranded", "subordinating"};
+
+    private long seed = 1;
+    private int sentencesPerDocument = 10;
+    private int meanSentenceLength = 18;
+    private double density = 0.5;
+
+    /**
+     * Different seeds give different corpora. Defaults to 1.
+     */
+    public SyntheticCorpus seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Defaults to 10, which is about what a STREUSLE document has.
+     */
+    public SyntheticCorpus sentencesPerDocument(int sentencesPerDocument) {
+        this.sentencesPerDocument = sentencesPerDocument;
+        return this;
+    }
+
+    /**
+     * Sentence lengths are spread evenly around this many tokens (+/- 50%). Defaults to 18.
+     */
+    public SyntheticCorpus meanSentenceLength(int meanSentenceLength) {
+        this.meanSentenceLength = meanSentenceLength;
+        return this;
+    }
+
+    /**
+     * Between 0 and 1: how much of the optional annotation there is, i.e. how likely a token is to have
+     * FEATS and extra MISC and enhanced dependencies, and a sentence to have MWEs, ellipsis tokens and
+     * heuristic relations. Defaults to 0.5.
+     */
+    public SyntheticCorpus density(double density) {
+        this.density = density;
+        return this;
+    }
+
+    /**
+     * @return the ID of the index-th document, which is also the prefix of its sentences' IDs
+     */
+    public String documentId(int index) {
+        return String.format("synthetic-%06d", index + 1);
+    }
+
+    /**
+     * @return the index-th document, as a JSON array of sentences
+     */
+    public JsonArray document(int index) {
+        Random random = new Random(seed * 1_000_003L + index);
+        JsonArray sentences = new JsonArray();
+        for (int i = 0; i < sentencesPerDocument; i++) {
+            sentences.add(new SentenceBuilder(random, index, i).build());
+        }
+        return sentences;
+    }
+
+    /**
+     * @return the sentences of documents 0 to documentCount - 1, one document after the other, as a
+     *         whole-corpus JSON array like the one StreusleCorpusSplitter splits
+     */
+    public JsonArray corpus(int documentCount) {
+        JsonArray sentences = new JsonArray();
+        for (int i = 0; i < documentCount; i++) {
+            for (JsonValue sentence : document(i)) {
+                sentences.add(sentence);
+            }
+        }
+        return sentences;
+    }
+
+    /**
+     * @return like {@link #corpus}, but with every document in two runs: the first half of each document's
+     *         sentences, document after document, and then the second half of each
+     */
+    public JsonArray interleavedCorpus(int documentCount) {
+        JsonArray sentences = new JsonArray();
+        for (int half = 0; half < 2; half++) {
+            for (int i = 0; i < documentCount; i++) {
+                JsonArray document = document(i);
+                int middle = document.size() / 2;
+                for (int j = half == 0 ? 0 : middle; j < (half == 0 ? middle : document.size()); j++) {
+                    sentences.add(document.get(j));
+                }
+            }
+        }
+        return sentences;
+    }
+
+    /**
+     * Write documents 0 to documentCount - 1 to dir, one file per document named after its ID, just like
+     * StreusleCorpusSplitter does.
+     */
+    public void write(Path dir, int documentCount) throws IOException {
+        Files.createDirectories(dir);
+        for (int i = 0; i < documentCount; i++) {
+            Path file = dir.resolve(documentId(i) + ".json");
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                document(i).writeTo(writer);
+            }
+        }
+    }
+
+    private boolean chance(Random random, double probability) {
+        return random.nextDouble() < probability;
+    }
+
+    private static <T> T pick(Random random, T[] items) {
+        return items[random.nextInt(items.length)];
+    }
+
+    // all the state for making up one sentence
+    private class SentenceBuilder {
+        private final Random random;
+        private final String sentenceId;
+        private final String streusleSentenceId;
+        private final int length;
+        private final String[][] words;
+        private final boolean[] spaceAfter;
+        private final int[] heads;
+        private final String[] deprels;
+        private final List<List<String>> extraEdeps = new ArrayList<>();
+        // MWE ID and position within it for every token, or 0 if it isn't in one
+        private final int[] smweIds;
+        private final int[] smwePositions;
+        private final int[] wmweIds;
+        private final int[] wmwePositions;
+        private final List<List<Integer>> smwes = new ArrayList<>();
+        private final List<List<Integer>> wmwes = new ArrayList<>();
+
+        SentenceBuilder(Random random, int documentIndex, int sentenceIndex) {
+            this.random = random;
+            sentenceId = documentId(documentIndex) + String.format("-%04d", sentenceIndex + 1);
+            streusleSentenceId = String.format("synth.%06d.%d", documentIndex + 1, sentenceIndex + 1);
+            int minLength = Math.max(1, meanSentenceLength / 2);
+            length = minLength + random.nextInt(Math.max(1, meanSentenceLength - minLength) * 2 + 1);
+            words = new String[length][];
+            spaceAfter = new boolean[length];
+            heads = new int[length];
+            deprels = new String[length];
+            smweIds = new int[length];
+            smwePositions = new int[length];
+            wmweIds = new int[length];
+            wmwePositions = new int[length];
+        }
+
+        JsonObject build() {
+            for (int i = 0; i < length; i++) {
+                words[i] = pick(random, VOCABULARY);
+                spaceAfter[i] = i == length - 1 || !chance(random, 0.1);
+                extraEdeps.add(new ArrayList<>());
+            }
+            makeTree();
+            List<JsonObject> etoks = makeEtoks();
+            makeExtraEdeps();
+            makeMwes();
+
+            StringBuilder text = new StringBuilder();
+            StringBuilder mweText = new StringBuilder();
+            JsonArray toks = new JsonArray();
+            for (int i = 0; i < length; i++) {
+                text.append(words[i][0]);
+                if (spaceAfter[i] && i < length - 1) {
+                    text.append(' ');
+                }
+                mweText.append(words[i][0]);
+                if (i < length - 1) {
+                    boolean joined = smweIds[i] != 0 && smweIds[i] == smweIds[i + 1];
+                    boolean weaklyJoined = wmweIds[i] != 0 && wmweIds[i] == wmweIds[i + 1];
+                    mweText.append(joined ? "_" : weaklyJoined ? "~" : " ");
+                }
+                toks.add(token(i));
+            }
+
+            JsonObject sentence = new JsonObject();
+            sentence.add("sent_id", sentenceId);
+            sentence.add("streusle_sent_id", streusleSentenceId);
+            sentence.add("text", text.toString());
+            sentence.add("mwe", mweText.toString());
+            sentence.add("toks", toks);
+            JsonArray etokArray = new JsonArray();
+            for (JsonObject etok : etoks) {
+                etokArray.add(etok);
+            }
+            sentence.add("etoks", etokArray);
+            sentence.add("swes", swes());
+            sentence.add("smwes", smwes());
+            sentence.add("wmwes", wmwes());
+            return sentence;
+        }
+
+        // a random tree: attach the tokens one by one, in random order, to a token that's already attached
+        private void makeTree() {
+            List<Integer> order = new ArrayList<>();
+            for (int i = 0; i < length; i++) {
+                order.add(i);
+            }
+            Collections.shuffle(order, random);
+            heads[order.get(0)] = 0;
+            deprels[order.get(0)] = "root";
+            for (int k = 1; k < length; k++) {
+                int token = order.get(k);
+                heads[token] = order.get(random.nextInt(k)) + 1;
+                deprels[token] = pick(random, DEPRELS);
+            }
+        }
+
+        // ellipsis tokens after a random token, which some other token then depends on
+        private List<JsonObject> makeEtoks() {
+            List<JsonObject> etoks = new ArrayList<>();
+            if (length < 2 || !chance(random, density * 0.2)) {
+                return etoks;
+            }
+            int base = 1 + random.nextInt(length);
+            int count = 1 + random.nextInt(2);
+            for (int k = 1; k <= count; k++) {
+                String id = base + "." + k;
+                String[] word = pick(random, VOCABULARY);
+                JsonObject etok = new JsonObject();
+                etok.add("#", new JsonArray().add(base).add(k).add(id));
+                etok.add("word", word[0]);
+                etok.add("lemma", word[1]);
+                etok.add("upos", word[2]);
+                etok.add("xpos", word[3]);
+                etok.add("feats", Json.NULL);
+                etok.add("head", Json.NULL);
+                etok.add("deprel", Json.NULL);
+                etok.add("edeps", base + ":conj");
+                etok.add("misc", Json.NULL);
+                etok.add("smwe", Json.NULL);
+                etok.add("wmwe", Json.NULL);
+                etok.add("lextag", Json.NULL);
+                etoks.add(etok);
+
+                int dependent = random.nextInt(length);
+                extraEdeps.get(dependent).add(id + ":" + pick(random, EXTRA_EDEPRELS));
+            }
+            return etoks;
+        }
+
+        // enhanced dependencies on top of the basic ones. These can form cycles, which is the point.
+        private void makeExtraEdeps() {
+            if (length < 3) {
+                return;
+            }
+            for (int i = 0; i < length; i++) {
+                if (chance(random, density * 0.3)) {
+                    int head = 1 + random.nextInt(length);
+                    if (head != i + 1 && head != heads[i]) {
+                        extraEdeps.get(i).add(head + ":" + pick(random, EXTRA_EDEPRELS));
+                    }
+                }
+            }
+        }
+
+        private void makeMwes() {
+            int strongCount = chance(random, density) ? 1 + random.nextInt(2) : 0;
+            for (int k = 0; k < strongCount; k++) {
+                List<Integer> mwe = pickFreeTokens(2 + random.nextInt(2));
+                if (mwe != null) {
+                    smwes.add(mwe);
+                    for (int p = 0; p < mwe.size(); p++) {
+                        smweIds[mwe.get(p) - 1] = smwes.size();
+                        smwePositions[mwe.get(p) - 1] = p + 1;
+                    }
+                }
+            }
+            if (chance(random, density * 0.5)) {
+                List<Integer> mwe = pickFreeTokens(2);
+                if (mwe != null) {
+                    wmwes.add(mwe);
+                    for (int p = 0; p < mwe.size(); p++) {
+                        wmweIds[mwe.get(p) - 1] = wmwes.size();
+                        wmwePositions[mwe.get(p) - 1] = p + 1;
+                    }
+                }
+            }
+        }
+
+        // IDs of size tokens in a row (or with a one-token gap) that aren't in an MWE yet, or null
+        private List<Integer> pickFreeTokens(int size) {
+            int span = chance(random, 0.2) ? size + 1 : size;
+            if (span > length) {
+                return null;
+            }
+            int start = random.nextInt(length - span + 1);
+            List<Integer> ids = new ArrayList<>();
+            for (int i = start; i < start + span; i++) {
+                if (span > size && i == start + 1) {
+                    continue;
+                }
+                if (smweIds[i] != 0 || wmweIds[i] != 0) {
+                    return null;
+                }
+                ids.add(i + 1);
+            }
+            return ids;
+        }
+
+        private JsonObject token(int i) {
+            String[] word = words[i];
+            JsonObject token = new JsonObject();
+            token.add("#", i + 1);
+            token.add("word", word[0]);
+            token.add("lemma", word[1]);
+            token.add("upos", word[2]);
+            token.add("xpos", word[3]);
+            token.add("feats", feats());
+            token.add("head", heads[i]);
+            token.add("deprel", deprels[i]);
+            token.add("edeps", edeps(i));
+            token.add("misc", misc(i));
+            token.add("smwe", smweIds[i] == 0 ? Json.NULL : new JsonArray().add(smweIds[i]).add(smwePositions[i]));
+            token.add("wmwe", wmweIds[i] == 0 ? Json.NULL : new JsonArray().add(wmweIds[i]).add(wmwePositions[i]));
+            token.add("lextag", lextag(i));
+            return token;
+        }
+
+        private JsonValue feats() {
+            if (!chance(random, 0.3 + 0.6 * density)) {
+                return Json.NULL;
+            }
+            // FEATS are sorted by name
+            SortedMap<String, String> feats = new TreeMap<>();
+            int count = 1 + random.nextInt(3);
+            for (int k = 0; k < count; k++) {
+                String[] feature = pick(random, FEATURES);
+                feats.put(feature[0], feature[1 + random.nextInt(feature.length - 1)]);
+            }
+            StringJoiner joiner = new StringJoiner("|");
+            feats.forEach((name, value) -> joiner.add(name + "=" + value));
+            return Json.value(joiner.toString());
+        }
+
+        private String edeps(int i) {
+            // DEPS are sorted by head, and heads like 3.1 go between 3 and 4
+            SortedMap<Double, String> edeps = new TreeMap<>();
+            edeps.put((double) heads[i], heads[i] + ":" + deprels[i]);
+            for (String extra : extraEdeps.get(i)) {
+                edeps.putIfAbsent(Double.parseDouble(extra.substring(0, extra.indexOf(':'))), extra);
+            }
+            return String.join("|", edeps.values());
+        }
+
+        private JsonValue misc(int i) {
+            StringJoiner joiner = new StringJoiner("|");
+            if (chance(random, density * 0.2)) {
+                joiner.add("CorrectForm=" + words[i][0]);
+            }
+            if (!spaceAfter[i]) {
+                joiner.add("SpaceAfter=No");
+            }
+            return joiner.length() == 0 ? Json.NULL : Json.value(joiner.toString());
+        }
+
+        private String lexcat(String[] word) {
+            switch (word[2]) {
+                case "NOUN":
+                case "PROPN":
+                    return "N";
+                case "VERB":
+                    return "V";
+                case "ADP":
+                    return "P";
+                case "PRON":
+                    return word[3].equals("PRP$") ? "PRON.POSS" : "PRON";
+                default:
+                    return word[2];
+            }
+        }
+
+        private String supersense(String lexcat) {
+            switch (lexcat) {
+                case "N":
+                    return pick(random, NOUN_SUPERSENSES);
+                case "V":
+                    return pick(random, VERB_SUPERSENSES);
+                case "P":
+                case "PRON.POSS":
+                    return pick(random, PREP_SUPERSENSES);
+                default:
+                    return null;
+            }
+        }
+
+        private String lextag(int i) {
+            if (smwePositions[i] > 1) {
+                return "I_";
+            }
+            if (wmwePositions[i] > 1) {
+                return "I~";
+            }
+            String prefix = smwePositions[i] == 1 || wmwePositions[i] == 1 ? "B-" : "O-";
+            return prefix + lexcat(words[i]);
+        }
+
+        private JsonObject lexicalExpression(List<Integer> toknums, String lexcat, boolean withSupersenses) {
+            StringJoiner lexlemma = new StringJoiner(" ");
+            JsonArray toknumArray = new JsonArray();
+            for (int id : toknums) {
+                lexlemma.add(words[id - 1][1]);
+                toknumArray.add(id);
+            }
+            JsonObject expression = new JsonObject();
+            expression.add("lexlemma", lexlemma.toString());
+            if (withSupersenses) {
+                String ss = supersense(lexcat);
+                boolean adpositional = lexcat.equals("P") || lexcat.equals("PRON.POSS");
+                expression.add("lexcat", lexcat);
+                expression.add("ss", ss == null ? Json.NULL : Json.value(ss));
+                expression.add("ss2", adpositional ? Json.value(supersense(lexcat)) : Json.NULL);
+            }
+            expression.add("toknums", toknumArray);
+            if (withSupersenses && (lexcat.equals("P") || lexcat.equals("PRON.POSS")) && chance(random, density)) {
+                expression.add("heuristic_relation", heuristicRelation(toknums.get(0)));
+            }
+            return expression;
+        }
+
+        private JsonObject heuristicRelation(int tokenId) {
+            JsonObject relation = new JsonObject();
+            relation.add("gov", otherTokenOrNull(tokenId));
+            relation.add("obj", otherTokenOrNull(tokenId));
+            relation.add("config", pick(random, CONFIGS));
+            return relation;
+        }
+
+        private JsonValue otherTokenOrNull(int tokenId) {
+            int other = 1 + random.nextInt(length);
+            return other == tokenId || chance(random, 0.2) ? Json.NULL : Json.value(other);
+        }
+
+        private JsonObject swes() {
+            JsonObject swes = new JsonObject();
+            for (int i = 0; i < length; i++) {
+                if (smweIds[i] == 0) {
+                    swes.add(Integer.toString(i + 1),
+                            lexicalExpression(Collections.singletonList(i + 1), lexcat(words[i]), true));
+                }
+            }
+            return swes;
+        }
+
+        private JsonObject smwes() {
+            JsonObject result = new JsonObject();
+            for (int k = 0; k < smwes.size(); k++) {
+                List<Integer> mwe = smwes.get(k);
+                String lexcat = lexcat(words[mwe.get(0) - 1]);
+                result.add(Integer.toString(k + 1), lexicalExpression(mwe, lexcat, true));
+            }
+            return result;
+        }
+
+        private JsonObject wmwes() {
+            JsonObject result = new JsonObject();
+            for (int k = 0; k < wmwes.size(); k++) {
+                result.add(Integer.toString(k + 1), lexicalExpression(wmwes.get(k), null, false));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Writes a synthetic corpus to a directory. Options: --out DIR (required), --documents N,
+     * --sentences N (per document), --tokens N (mean sentence length), --density D, --seed S.
+     */
+    public static void main(String[] args) throws IOException {
+        SyntheticCorpus corpus = new SyntheticCorpus();
+        Path out = null;
+        int documents = 1;
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--out":
+                    out = Paths.get(value);
+                    break;
+                case "--documents":
+                    documents = Integer.parseInt(value);
+                    break;
+                case "--sentences":
+                    corpus.sentencesPerDocument(Integer.parseInt(value));
+                    break;
+                case "--tokens":
+                    corpus.meanSentenceLength(Integer.parseInt(value));
+                    break;
+                case "--density":
+                    corpus.density(Double.parseDouble(value));
+                    break;
+                case "--seed":
+                    corpus.seed(Long.parseLong(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (out == null) {
+            throw new IllegalArgumentException("--out is required");
+        }
+        corpus.write(out, documents);
+        System.out.println("Wrote " + documents + " docs to " + out);
+    }
+}
@@ -0,0 +1,80 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.corpus_tools.pepper.common.DOCUMENT_STATUS;
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocument;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.eclipse.emf.common.util.URI;
+
+/**
+ * The STREUSLE JSON the tests run on: a couple of real-shaped sentences bundled as a resource, and
+ * {@link SyntheticCorpus} documents of any size.
+ */
+public final class TestDocuments {
+    public static final String SAMPLE = "reviews-sample";
+
+    private TestDocuments() {
+    }
+
+    /**
+     * @return the UTF-8 encoded JSON of the bundled sample document
+     */
+    public static byte[] sample() throws IOException {
+        try (InputStream in = TestDocuments.class.getResourceAsStream("/" + SAMPLE + ".json")) {
+            if (in == null) {
+                throw new IOException("The " + SAMPLE + ".json resource is missing");
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * @return the UTF-8 encoded JSON of a synthetic document with this many sentences and the generator's
+     *         defaults otherwise
+     */
+    public static byte[] synthetic(int sentenceCount) {
+        return new SyntheticCorpus().sentencesPerDocument(sentenceCount).document(0).toString()
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write a document to a file and map it the way the importer would, with these properties.
+     * @return the mapped document's graph
+     */
+    public static SDocumentGraph map(byte[] document, Path file, StreusleImporterProperties properties)
+            throws IOException {
+        Files.write(file, document);
+        return map(URI.createFileURI(file.toString()), properties);
+    }
+
+    /**
+     * Map the document at resource (a file, or a virtual document in a corpus file) the way the importer
+     * would, with these properties.
+     * @return the mapped document's graph
+     */
+    public static SDocumentGraph map(URI resource, StreusleImporterProperties properties) throws IOException {
+        StreusleMapper mapper = new StreusleMapper();
+        mapper.setProperties(properties);
+        mapper.setResourceURI(resource);
+        SDocument sDocument = SaltFactory.createSDocument();
+        mapper.setDocument(sDocument);
+        DOCUMENT_STATUS status = mapper.mapSDocument();
+        if (status != DOCUMENT_STATUS.COMPLETED) {
+            throw new IOException("Mapping " + resource + " failed: " + status);
+        }
+        return sDocument.getDocumentGraph();
+    }
+}
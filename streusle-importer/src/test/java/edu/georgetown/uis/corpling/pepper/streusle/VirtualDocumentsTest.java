@@ -0,0 +1,137 @@
+package edu.georgetown.uis.corpling.pepper.streusle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.eclipsesource.json.JsonArray;
+import org.eclipse.emf.common.util.URI;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Each virtual document in a corpus file has to map to the same graph as the document in a file of its own.
+ */
+public class VirtualDocumentsTest {
+    private static final int DOCUMENTS = 4;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final SyntheticCorpus synthetic = new SyntheticCorpus().sentencesPerDocument(6);
+
+    private Path write(JsonArray corpus) throws IOException {
+        Path file = folder.newFile().toPath();
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            corpus.writeTo(writer);
+        }
+        return file;
+    }
+
+    private static String map(URI resource) throws IOException {
+        return GraphDump.dump(TestDocuments.map(resource, new StreusleImporterProperties()));
+    }
+
+    private static URI virtualDocument(Path corpus, List<VirtualDocuments.Range> ranges) {
+        return URI.createFileURI(corpus.toString()).appendFragment(VirtualDocuments.toFragment(ranges));
+    }
+
+    /**
+     * Every document's sentences in a row, so each virtual document is one range of the corpus file, and
+     * StreusleCorpusSplitter can split the same corpus on disk.
+     */
+    @Test
+    public void matchSplitDocuments() throws IOException {
+        Path corpus = write(synthetic.corpus(DOCUMENTS));
+        Path split = folder.newFolder().toPath();
+        StreusleCorpusSplitter.split(corpus, split);
+
+        Map<String, List<VirtualDocuments.Range>> documents = VirtualDocuments.index(corpus);
+        List<String> expectedIds = new ArrayList<>();
+        for (int i = 0; i < DOCUMENTS; i++) {
+            expectedIds.add(synthetic.documentId(i));
+        }
+        assertEquals(expectedIds, new ArrayList<>(documents.keySet()));
+
+        for (Map.Entry<String, List<VirtualDocuments.Range>> document : documents.entrySet()) {
+            assertEquals(1, document.getValue().size());
+            String fragment = VirtualDocuments.toFragment(document.getValue());
+            assertTrue(fragment, fragment.matches("\\d+-\\d+"));
+
+            ByteBuffer json = VirtualDocuments.read(corpus, fragment);
+            assertEquals('[', json.get(0));
+            assertEquals(']', json.get(json.limit() - 1));
+
+            Path splitFile = split.resolve(document.getKey() + ".json");
+            assertEquals(map(URI.createFileURI(splitFile.toString())),
+                    map(virtualDocument(corpus, document.getValue())));
+        }
+    }
+
+    /**
+     * A document whose sentences are interrupted by another document's gets one range per run of them,
+     * and still maps to the whole document.
+     */
+    @Test
+    public void interleavedDocumentHasSeveralRanges() throws IOException {
+        JsonArray first = synthetic.document(0);
+        JsonArray second = synthetic.document(1);
+        JsonArray corpus = new JsonArray();
+        for (int i = 0; i < 2; i++) {
+            corpus.add(first.get(i));
+        }
+        for (int i = 0; i < second.size(); i++) {
+            corpus.add(second.get(i));
+        }
+        for (int i = 2; i < first.size(); i++) {
+            corpus.add(first.get(i));
+        }
+        Path corpusFile = write(corpus);
+
+        Map<String, List<VirtualDocuments.Range>> documents = VirtualDocuments.index(corpusFile);
+        assertEquals(Arrays.asList(synthetic.documentId(0), synthetic.documentId(1)),
+                new ArrayList<>(documents.keySet()));
+        List<VirtualDocuments.Range> ranges = documents.get(synthetic.documentId(0));
+        assertEquals(2, ranges.size());
+        assertTrue(VirtualDocuments.toFragment(ranges).matches("\\d+-\\d+,\\d+-\\d+"));
+
+        Path whole = folder.newFolder().toPath();
+        synthetic.write(whole, 2);
+        for (int i = 0; i < 2; i++) {
+            String id = synthetic.documentId(i);
+            Path file = whole.resolve(id + ".json");
+            assertEquals(map(URI.createFileURI(file.toString())), map(virtualDocument(corpusFile, documents.get(id))));
+        }
+    }
+
+    /**
+     * StreusleCorpusSplitter puts a document's runs of sentences together in its file, so a document in
+     * several runs still maps like its virtual document.
+     */
+    @Test
+    public void matchSplitInterleavedDocuments() throws IOException {
+        Path corpus = write(synthetic.interleavedCorpus(DOCUMENTS));
+        Path split = folder.newFolder().toPath();
+        assertEquals(DOCUMENTS, StreusleCorpusSplitter.split(corpus, split));
+
+        Map<String, List<VirtualDocuments.Range>> documents = VirtualDocuments.index(corpus);
+        assertEquals(DOCUMENTS, documents.size());
+        for (Map.Entry<String, List<VirtualDocuments.Range>> document : documents.entrySet()) {
+            assertEquals(2, document.getValue().size());
+            Path splitFile = split.resolve(document.getKey() + ".json");
+            assertEquals(map(URI.createFileURI(splitFile.toString())),
+                    map(virtualDocument(corpus, document.getValue())));
+        }
+    }
+}